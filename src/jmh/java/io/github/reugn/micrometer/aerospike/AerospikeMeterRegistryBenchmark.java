@@ -0,0 +1,78 @@
+package io.github.reugn.micrometer.aerospike;
+
+import com.aerospike.client.BatchRecord;
+import io.github.reugn.micrometer.aerospike.client.StubAerospikeClient;
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.util.NamedThreadFactory;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the cost of encoding every meter of the registry, as done by a publish step,
+ * without the writes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AerospikeMeterRegistryBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int meters;
+
+    private AerospikeMeterRegistry registry;
+    private List<Meter> registered;
+
+    @Setup
+    public void setup() {
+        registry = new AerospikeMeterRegistry(AerospikeConfig.DEFAULT, Clock.SYSTEM,
+                new NamedThreadFactory("benchmark-publisher"), StubAerospikeClient.create());
+        for (int i = 0; i < meters; i++) {
+            String uri = "/api/v1/resource/" + (i / 3);
+            switch (i % 3) {
+                case 0:
+                    registry.counter("http.client.requests", "uri", uri, "method", "GET").increment();
+                    break;
+                case 1:
+                    registry.timer("http.server.requests", "uri", uri, "status", "200")
+                            .record(i, TimeUnit.MILLISECONDS);
+                    break;
+                default:
+                    registry.gauge("cache.size", Tags.of("cache", uri),
+                            new AtomicLong(i));
+            }
+        }
+        registered = registry.getMeters();
+    }
+
+    @TearDown
+    public void tearDown() {
+        registry.close();
+    }
+
+    @Benchmark
+    public void encodeAll(Blackhole blackhole) {
+        for (Meter meter : registered) {
+            Optional<BatchRecord> record = meter.match(
+                    registry::handleGauge,
+                    registry::handleCounter,
+                    registry::handleTimer,
+                    registry::handleSummary,
+                    registry::handleLongTaskTimer,
+                    registry::handleTimeGauge,
+                    registry::handleFunctionCounter,
+                    registry::handleFunctionTimer,
+                    registry::handleCustomMetric);
+            blackhole.consume(record);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package io.github.reugn.micrometer.aerospike;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.NamingConvention;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link AerospikeNamingConvention} formatting of plain names and names that need escaping.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AerospikeNamingConventionBenchmark {
+
+    private final NamingConvention convention = new AerospikeNamingConvention();
+
+    @Benchmark
+    public String plainName() {
+        return convention.name("http.server.requests", Meter.Type.TIMER, null);
+    }
+
+    @Benchmark
+    public String escapedName() {
+        return convention.name("jvm.gc.pause(major)=\"full\"", Meter.Type.TIMER, null);
+    }
+
+    @Benchmark
+    public String plainTagValue() {
+        return convention.tagValue("/api/v1/users");
+    }
+
+    @Benchmark
+    public String escapedTagValue() {
+        return convention.tagValue("[GET] /api/v1/users/{id}");
+    }
+}
@@ -0,0 +1,74 @@
+package io.github.reugn.micrometer.aerospike;
+
+import com.aerospike.client.BatchRecord;
+import com.aerospike.client.BatchWrite;
+import com.aerospike.client.Operation;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.config.NamingConvention;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the per-bin and the packed record layouts: encoding time and the wire bytes
+ * of the bins of a timer sample, reported as the {@code binBytes} counter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MeterEncoderBenchmark {
+
+    // the per-bin overhead of a write operation in the Aerospike wire protocol
+    private static final int OPERATION_HEADER_SIZE = 8;
+
+    @Param({"false", "true"})
+    public boolean packed;
+
+    private MeterEncoder encoder;
+    private final Meter.Id id = new Meter.Id("http.server.requests",
+            Tags.of("method", "GET", "status", "200", "uri", "/api/v1/users", "outcome", "SUCCESS"),
+            null, null, Meter.Type.TIMER);
+    private long timestamp = 1_650_000_000_000L;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Size {
+        public long binBytes;
+    }
+
+    @Setup
+    public void setup() {
+        NamingConvention convention = new AerospikeNamingConvention();
+        AerospikeConfig config = new AerospikeConfig() {
+            @Override
+            public String get(String key) {
+                return null;
+            }
+
+            @Override
+            public boolean packedEncoding() {
+                return packed;
+            }
+        };
+        encoder = new MeterEncoder(config, id -> id.getConventionName(convention),
+                id -> id.getConventionTags(convention));
+    }
+
+    @Benchmark
+    public BatchRecord encodeTimer(Size size) {
+        timestamp += 60_000;
+        BatchRecord record = encoder.encode(id, SampleType.TIMER, timestamp, 42, 125.5, 12.25, 514.5)
+                .orElseThrow(IllegalStateException::new);
+        int bytes = 0;
+        for (Operation op : ((BatchWrite) record).ops) {
+            bytes += OPERATION_HEADER_SIZE + op.binName.length() + op.value.estimateSize();
+        }
+        // assigned rather than accumulated, so the counter reports the size of a single sample
+        size.binBytes = bytes;
+        return record;
+    }
+}
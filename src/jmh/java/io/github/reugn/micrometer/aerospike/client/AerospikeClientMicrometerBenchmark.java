@@ -0,0 +1,85 @@
+package io.github.reugn.micrometer.aerospike.client;
+
+import com.aerospike.client.BatchRecord;
+import com.aerospike.client.BatchWrite;
+import com.aerospike.client.Bin;
+import com.aerospike.client.IAerospikeClient;
+import com.aerospike.client.Key;
+import com.aerospike.client.Operation;
+import com.aerospike.client.Record;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the raw client against {@link AerospikeClientMicrometer} wrapping the same no-op delegate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AerospikeClientMicrometerBenchmark {
+
+    private IAerospikeClient raw;
+    private IAerospikeClient metered;
+
+    private final Key key = new Key("test", "bench", "key");
+    private final Bin bin = new Bin("value", 1L);
+    private final Operation[] ops = {Operation.add(bin), Operation.get()};
+    private List<BatchRecord> batch;
+
+    @Setup
+    public void setup() {
+        raw = StubAerospikeClient.create();
+        metered = new AerospikeClientMicrometer(raw, new SimpleMeterRegistry());
+        batch = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            batch.add(new BatchWrite(new Key("test", "bench", i), ops));
+        }
+    }
+
+    @Benchmark
+    public void rawPut() {
+        raw.put(null, key, bin);
+    }
+
+    @Benchmark
+    public void meteredPut() {
+        metered.put(null, key, bin);
+    }
+
+    @Benchmark
+    public Record rawGet() {
+        return raw.get(null, key);
+    }
+
+    @Benchmark
+    public Record meteredGet() {
+        return metered.get(null, key);
+    }
+
+    @Benchmark
+    public Record rawOperate() {
+        return raw.operate(null, key, ops);
+    }
+
+    @Benchmark
+    public Record meteredOperate() {
+        return metered.operate(null, key, ops);
+    }
+
+    @Benchmark
+    public boolean rawBatchOperate() {
+        return raw.operate(null, batch);
+    }
+
+    @Benchmark
+    public boolean meteredBatchOperate() {
+        return metered.operate(null, batch);
+    }
+}
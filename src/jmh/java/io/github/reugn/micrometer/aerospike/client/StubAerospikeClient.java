@@ -0,0 +1,30 @@
+package io.github.reugn.micrometer.aerospike.client;
+
+import com.aerospike.client.IAerospikeClient;
+
+import java.lang.reflect.Proxy;
+
+/**
+ * A no-op {@link IAerospikeClient} used to measure the instrumentation overhead in isolation.
+ */
+public final class StubAerospikeClient {
+
+    private StubAerospikeClient() {
+    }
+
+    public static IAerospikeClient create() {
+        return (IAerospikeClient) Proxy.newProxyInstance(
+                IAerospikeClient.class.getClassLoader(),
+                new Class<?>[]{IAerospikeClient.class},
+                (proxy, method, args) -> {
+                    Class<?> returnType = method.getReturnType();
+                    if (returnType == boolean.class) {
+                        return true;
+                    }
+                    if (returnType.isPrimitive() && returnType != void.class) {
+                        return 0;
+                    }
+                    return null;
+                });
+    }
+}
@@ -4,9 +4,16 @@ import com.aerospike.client.Host;
 import com.aerospike.client.policy.BatchPolicy;
 import com.aerospike.client.policy.BatchWritePolicy;
 import com.aerospike.client.policy.ClientPolicy;
+import com.aerospike.client.policy.QueryPolicy;
 import io.micrometer.core.instrument.step.StepRegistryConfig;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 public interface AerospikeConfig extends StepRegistryConfig {
 
@@ -27,6 +34,10 @@ public interface AerospikeConfig extends StepRegistryConfig {
         return new BatchPolicy();
     }
 
+    default QueryPolicy queryPolicy() {
+        return new QueryPolicy();
+    }
+
     default Host[] hosts() {
         return new Host[]{new Host("localhost", 3000)};
     }
@@ -39,6 +50,237 @@ public interface AerospikeConfig extends StepRegistryConfig {
         return "micrometer";
     }
 
+    /**
+     * The id of this publisher, such as the host or pod name, written to the {@code instance} bin
+     * and folded into the record keys. Instances publishing the same meters must have distinct ids,
+     * as the samples of a step share its timestamp, and records of the same key overwrite each other.
+     *
+     * @return the instance id, null for a single publisher
+     */
+    @Nullable
+    default String instanceId() {
+        return null;
+    }
+
+    /**
+     * The rotation of the set of the meter records. With a rotation, the records of each period are
+     * written to one of a cycle of sets named after {@link #setName()}, and the set of a period is
+     * truncated once the period is older than {@link #setRetention()}. The histogram merge, aggregate
+     * and rollup records keep their own sets. Readers must be configured with the same rotation and
+     * retention.
+     * <p>
+     * A namespace holds a limited number of set names, and truncating a set does not free its name,
+     * so the cycle takes a set for each period of the retention plus two, up to
+     * {@link SetRotation#MAX_SETS}.
+     *
+     * @return the set rotation
+     */
+    default SetRotation setRotation() {
+        return SetRotation.NONE;
+    }
+
+    /**
+     * How long the records of the rotated sets are kept. The set of a period is truncated once the whole
+     * period is older than the retention, so the records do not need an expiration. Required with
+     * a {@link #setRotation()}.
+     *
+     * @return the retention of the rotated sets
+     */
+    default Duration setRetention() {
+        return Duration.ZERO;
+    }
+
+    /**
+     * The layout of the meter records.
+     *
+     * @return the storage mode
+     */
+    default StorageMode storageMode() {
+        return StorageMode.RECORD_PER_STEP;
+    }
+
+    /**
+     * The time span covered by a single record in the {@link StorageMode#BUCKETED} mode.
+     *
+     * @return the bucket duration
+     */
+    default Duration bucketDuration() {
+        return Duration.ofHours(1);
+    }
+
+    /**
+     * Whether to key the records by the series id, the meter name and tags, and the index of the step,
+     * or of the bucket in the {@link StorageMode#BUCKETED} mode, instead of the record timestamp.
+     * The keys of a time range can then be computed, so a series is read with a single batch get,
+     * see {@link AerospikeMetricsReader#readSeries}.
+     *
+     * @return true to use series keys
+     */
+    default boolean seriesKeys() {
+        return false;
+    }
+
+    /**
+     * Whether to write the type, tags and values of a sample to a single packed {@code data} bin
+     * instead of a bin per field and tag. Use {@link PackedSample#decode(byte[], long)} to read it.
+     *
+     * @return true to use the packed encoding
+     */
+    default boolean packedEncoding() {
+        return false;
+    }
+
+    /**
+     * Whether to skip meters that did not change since they were last written:
+     * gauges with the same value and step meters with no recordings in the step.
+     *
+     * @return true to write changed meters only
+     */
+    default boolean deltaPublishing() {
+        return false;
+    }
+
+    /**
+     * The interval after which an unchanged meter is written anyway when {@link #deltaPublishing()} is enabled.
+     *
+     * @return the heartbeat interval
+     */
+    default Duration heartbeatInterval() {
+        return Duration.ofMinutes(10);
+    }
+
+    /**
+     * Whether to add the histogram bucket counts of timers and distribution summaries to a per-step
+     * record shared by all instances, so that fleet-wide percentiles can be computed from a single
+     * record with {@link HistogramBuckets#percentile(Map, double)}.
+     *
+     * @return true to write the merge records
+     */
+    default boolean histogramMerge() {
+        return false;
+    }
+
+    /**
+     * The set of the histogram merge records.
+     *
+     * @return the merge set name
+     */
+    default String mergeSetName() {
+        return setName() + "_merge";
+    }
+
+    /**
+     * Whether to add the counts, totals and maximums of counters, timers, distribution summaries and
+     * function meters to a per-window record shared by all instances, in addition to the regular records.
+     * The counts and totals are added with {@code Operation.add}, so the record holds fleet-wide
+     * totals of the window.
+     *
+     * @return true to write the aggregate records
+     */
+    default boolean aggregateWrites() {
+        return false;
+    }
+
+    /**
+     * The time span covered by a single aggregate record.
+     *
+     * @return the aggregate window
+     */
+    default Duration aggregateWindow() {
+        return Duration.ofMinutes(1);
+    }
+
+    /**
+     * The set of the aggregate records.
+     *
+     * @return the aggregate set name
+     */
+    default String aggregateSetName() {
+        return setName() + "_agg";
+    }
+
+    /**
+     * The downsampling tiers, such as {@link RollupTier#defaults()}. Each published sample is also folded
+     * into a per-series record of every tier, shared by all instances like the aggregate records, and
+     * written to the {@link RollupTier#setName(String) tier set} with the tier retention as expiration.
+     * The records hold the number of folded samples, the added counts and totals, the maximums and the
+     * histogram bucket counts of the steps, so the regular records can expire sooner with the
+     * {@link #batchWritePolicy()} expiration. Each tier adds a write per sample, and the additions are
+     * not retried or spooled when their outcome is in doubt.
+     *
+     * @return the rollup tiers, empty to disable rollups
+     */
+    default List<RollupTier> rollupTiers() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * The maximum number of metric batches written concurrently during a publish.
+     * Encoding of the following batches blocks while this many batches are in flight.
+     *
+     * @return the number of in-flight batches
+     */
+    default int publishConcurrency() {
+        return 4;
+    }
+
+    /**
+     * The maximum number of times the records rejected with a transient error, such as a timeout
+     * or a device overload, are written again. Retries stop at the end of the publish step.
+     *
+     * @return the number of retries, zero disables retries
+     */
+    default int publishRetries() {
+        return 3;
+    }
+
+    /**
+     * The delay before the first retry of the rejected records, doubled on each following retry.
+     *
+     * @return the base retry backoff
+     */
+    default Duration retryBackoff() {
+        return Duration.ofMillis(100);
+    }
+
+    /**
+     * The directory of the spool that keeps the metric batches that failed to be written,
+     * to replay them once the cluster accepts writes again. Null disables the spool.
+     *
+     * @return the spool directory
+     */
+    @Nullable
+    default Path spoolDirectory() {
+        return null;
+    }
+
+    /**
+     * The maximum size of the spool files. The oldest batches are dropped when the spool is full.
+     *
+     * @return the spool size cap in bytes
+     */
+    default long spoolMaxBytes() {
+        return 256L * 1024 * 1024;
+    }
+
+    /**
+     * The size of a single spool file, which also bounds the size of a spooled batch.
+     *
+     * @return the spool segment size in bytes
+     */
+    default int spoolSegmentBytes() {
+        return 16 * 1024 * 1024;
+    }
+
+    /**
+     * The maximum number of spooled batches replayed per second.
+     *
+     * @return the replay rate
+     */
+    default int spoolReplayRate() {
+        return 10;
+    }
+
     /**
      * Property prefix to prepend to configuration names.
      *
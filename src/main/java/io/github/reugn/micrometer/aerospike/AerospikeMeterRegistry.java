@@ -2,10 +2,10 @@ package io.github.reugn.micrometer.aerospike;
 
 import com.aerospike.client.AerospikeClient;
 import com.aerospike.client.BatchRecord;
-import com.aerospike.client.BatchWrite;
-import com.aerospike.client.Bin;
-import com.aerospike.client.Key;
-import com.aerospike.client.Operation;
+import com.aerospike.client.IAerospikeClient;
+import com.aerospike.client.async.EventLoops;
+import com.aerospike.client.policy.ClientPolicy;
+import io.github.reugn.micrometer.aerospike.SampleType.Field;
 import io.micrometer.core.instrument.*;
 import io.micrometer.core.instrument.step.StepMeterRegistry;
 import io.micrometer.core.instrument.util.MeterPartition;
@@ -14,6 +14,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -24,31 +26,78 @@ import java.util.stream.Collectors;
 public class AerospikeMeterRegistry extends StepMeterRegistry {
 
     private static final ThreadFactory DEFAULT_THREAD_FACTORY = new NamedThreadFactory("aerospike-metrics-publisher");
+    private static final ThreadFactory WRITER_THREAD_FACTORY = new NamedThreadFactory("aerospike-metrics-writer");
+    private static final ThreadFactory SPOOL_THREAD_FACTORY = new NamedThreadFactory("aerospike-metrics-spool");
 
     private static final Logger logger = LoggerFactory.getLogger(AerospikeMeterRegistry.class);
 
     private final AerospikeConfig config;
-    private final AerospikeClient client;
+    private final IAerospikeClient client;
+    private final boolean ownsClient;
+    private final MeterEncoder encoder;
+    private final BatchPublisher batchPublisher;
+    private final Timer publishTimer;
+    @Nullable
+    private final SpoolReplayer spoolReplayer;
+    @Nullable
+    private final SetTruncator setTruncator;
+
+    // the step boundary written as the timestamp of all samples of a publish,
+    // only accessed by the publishing thread
+    private long publishTimestamp;
 
     public AerospikeMeterRegistry(AerospikeConfig config, Clock clock) {
         this(config, clock, DEFAULT_THREAD_FACTORY);
     }
 
     public AerospikeMeterRegistry(AerospikeConfig config, Clock clock, ThreadFactory threadFactory) {
+        this(config, clock, threadFactory, new AerospikeClient(config.clientPolicy(), config.hosts()), null, true);
+    }
+
+    /**
+     * Creates a registry that publishes through the given client instead of connecting to
+     * {@link AerospikeConfig#hosts()}. The client is shared and is not closed with the registry.
+     */
+    public AerospikeMeterRegistry(AerospikeConfig config, Clock clock, ThreadFactory threadFactory,
+                                  IAerospikeClient client) {
+        this(config, clock, threadFactory, client, null, false);
+    }
+
+    private AerospikeMeterRegistry(AerospikeConfig config, Clock clock, ThreadFactory threadFactory,
+                                   IAerospikeClient client, @Nullable EventLoops eventLoops, boolean ownsClient) {
         super(config, clock);
 
         config().namingConvention(new AerospikeNamingConvention());
 
         this.config = config;
-        this.client = new AerospikeClient(config.clientPolicy(), config.hosts());
+        this.client = client;
+        this.ownsClient = ownsClient;
+        this.encoder = new MeterEncoder(config, this::getConventionName, this::getConventionTags);
+        config().onMeterRemoved(meter -> encoder.remove(meter.getId()));
+        this.publishTimer = Timer.builder("aerospike.registry.publish")
+                .description("Time to write all meters of a step")
+                .register(this);
+        Path spoolDirectory = config.spoolDirectory();
+        this.spoolReplayer = spoolDirectory == null ? null : new SpoolReplayer(
+                new BatchSpool(spoolDirectory, config.spoolMaxBytes(), config.spoolSegmentBytes()),
+                client, config, clock, SPOOL_THREAD_FACTORY, this);
+        this.batchPublisher = new BatchPublisher(client, config, WRITER_THREAD_FACTORY, eventLoops, this,
+                spoolReplayer == null ? batch -> {
+                } : spoolReplayer::spool);
+        this.setTruncator = config.setRotation() == SetRotation.NONE
+                ? null : new SetTruncator(client, config, this);
         start(threadFactory);
     }
 
     @Override
     protected void publish() {
         logger.debug(getClass().getSimpleName() + " publish");
-        for (List<Meter> batch : MeterPartition.partition(this, config.batchSize())) {
-            try {
+        long start = config().clock().monotonicTime();
+        long deadline = System.nanoTime() + config.step().toNanos();
+        long wallTime = config().clock().wallTime();
+        publishTimestamp = wallTime - Math.floorMod(wallTime, config.step().toMillis());
+        try {
+            for (List<Meter> batch : MeterPartition.partition(this, config.batchSize())) {
                 List<BatchRecord> batchRecords = batch.stream().map(m -> m.match(
                         this::handleGauge,
                         this::handleCounter,
@@ -59,196 +108,110 @@ public class AerospikeMeterRegistry extends StepMeterRegistry {
                         this::handleFunctionCounter,
                         this::handleFunctionTimer,
                         this::handleCustomMetric)
-                ).filter(Optional::isPresent).map(Optional::get).collect(Collectors.toList());
-                if (!client.operate(config.batchPolicy(), batchRecords)) {
-                    logger.warn("Failed to write some metrics to Aerospike");
+                ).filter(Optional::isPresent).map(Optional::get).collect(Collectors.toCollection(ArrayList::new));
+                encoder.drainSharedRecords(batchRecords);
+                if (!batchRecords.isEmpty()) {
+                    batchPublisher.submit(batchRecords, deadline);
                 }
-            } catch (Throwable t) {
-                logger.warn("Failed to write metrics to Aerospike", t);
             }
+            if (!batchPublisher.await(config.step())) {
+                logger.warn("Metric batches are still in flight at the end of the step");
+            }
+            if (setTruncator != null) {
+                setTruncator.truncateExpired(wallTime);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable t) {
+            logger.warn("Failed to write metrics to Aerospike", t);
+        } finally {
+            publishTimer.record(config().clock().monotonicTime() - start, TimeUnit.NANOSECONDS);
         }
     }
 
     Optional<BatchRecord> handleGauge(Gauge gauge) {
         double value = gauge.value();
         if (!Double.isFinite(value)) return Optional.empty();
-        long wallTime = config().clock().wallTime();
-        String name = getConventionName(gauge.getId());
-        List<Operation> ops = new ArrayList<>();
-        ops.add(Operation.put(new Bin("type", "Gauge")));
-        ops.add(Operation.put(new Bin("ts", wallTime)));
-        ops.add(Operation.put(new Bin("name", name)));
-        ops.add(Operation.put(new Bin("value", value)));
-        addTagOps(gauge.getId(), ops);
-
-        return Optional.of(new BatchWrite(
-                config.batchWritePolicy(),
-                getKey(name, wallTime),
-                ops.toArray(new Operation[0])
-        ));
+        return encoder.encode(gauge.getId(), SampleType.GAUGE, publishTimestamp, value);
     }
 
     Optional<BatchRecord> handleCounter(Counter counter) {
-        long wallTime = config().clock().wallTime();
-        String name = getConventionName(counter.getId());
-        List<Operation> ops = new ArrayList<>();
-        ops.add(Operation.put(new Bin("type", "Counter")));
-        ops.add(Operation.put(new Bin("ts", wallTime)));
-        ops.add(Operation.put(new Bin("name", name)));
-        ops.add(Operation.put(new Bin("count", counter.count())));
-        addTagOps(counter.getId(), ops);
-
-        return Optional.of(new BatchWrite(
-                config.batchWritePolicy(),
-                getKey(name, wallTime),
-                ops.toArray(new Operation[0])
-        ));
+        return encoder.encode(counter.getId(), SampleType.COUNTER, publishTimestamp, counter.count());
     }
 
     Optional<BatchRecord> handleTimer(Timer timer) {
-        long wallTime = config().clock().wallTime();
-        String name = getConventionName(timer.getId());
-        List<Operation> ops = new ArrayList<>();
-        ops.add(Operation.put(new Bin("type", "Timer")));
-        ops.add(Operation.put(new Bin("ts", wallTime)));
-        ops.add(Operation.put(new Bin("name", name)));
-        ops.add(Operation.put(new Bin("count", timer.count())));
-        ops.add(Operation.put(new Bin("max", timer.max(getBaseTimeUnit()))));
-        ops.add(Operation.put(new Bin("avg", timer.mean(getBaseTimeUnit()))));
-        ops.add(Operation.put(new Bin("sum", timer.totalTime(getBaseTimeUnit()))));
-        addTagOps(timer.getId(), ops);
-
-        return Optional.of(new BatchWrite(
-                config.batchWritePolicy(),
-                getKey(name, wallTime),
-                ops.toArray(new Operation[0])
-        ));
+        return encoder.encode(timer.getId(), SampleType.TIMER, publishTimestamp,
+                timer.takeSnapshot(), getBaseTimeUnit(),
+                timer.count(),
+                timer.max(getBaseTimeUnit()),
+                timer.mean(getBaseTimeUnit()),
+                timer.totalTime(getBaseTimeUnit()));
     }
 
     Optional<BatchRecord> handleSummary(DistributionSummary summary) {
-        long wallTime = config().clock().wallTime();
-        String name = getConventionName(summary.getId());
-        List<Operation> ops = new ArrayList<>();
-        ops.add(Operation.put(new Bin("type", "DistributionSummary")));
-        ops.add(Operation.put(new Bin("ts", wallTime)));
-        ops.add(Operation.put(new Bin("name", name)));
-        ops.add(Operation.put(new Bin("count", summary.count())));
-        ops.add(Operation.put(new Bin("max", summary.max())));
-        ops.add(Operation.put(new Bin("avg", summary.mean())));
-        ops.add(Operation.put(new Bin("sum", summary.totalAmount())));
-        addTagOps(summary.getId(), ops);
-
-        return Optional.of(new BatchWrite(
-                config.batchWritePolicy(),
-                getKey(name, wallTime),
-                ops.toArray(new Operation[0])
-        ));
+        return encoder.encode(summary.getId(), SampleType.DISTRIBUTION_SUMMARY, publishTimestamp,
+                summary.takeSnapshot(), null,
+                summary.count(),
+                summary.max(),
+                summary.mean(),
+                summary.totalAmount());
     }
 
     Optional<BatchRecord> handleLongTaskTimer(LongTaskTimer timer) {
-        long wallTime = config().clock().wallTime();
-        String name = getConventionName(timer.getId());
-        List<Operation> ops = new ArrayList<>();
-        ops.add(Operation.put(new Bin("type", "LongTaskTimer")));
-        ops.add(Operation.put(new Bin("ts", wallTime)));
-        ops.add(Operation.put(new Bin("name", name)));
-        ops.add(Operation.put(new Bin("activeTasks", timer.activeTasks())));
-        ops.add(Operation.put(new Bin("duration", timer.duration(getBaseTimeUnit()))));
-        addTagOps(timer.getId(), ops);
-
-        return Optional.of(new BatchWrite(
-                config.batchWritePolicy(),
-                getKey(name, wallTime),
-                ops.toArray(new Operation[0])
-        ));
+        return encoder.encode(timer.getId(), SampleType.LONG_TASK_TIMER, publishTimestamp,
+                timer.activeTasks(),
+                timer.duration(getBaseTimeUnit()));
     }
 
     Optional<BatchRecord> handleTimeGauge(TimeGauge timeGauge) {
         double value = timeGauge.value(getBaseTimeUnit());
         if (!Double.isFinite(value)) return Optional.empty();
-        long wallTime = config().clock().wallTime();
-        String name = getConventionName(timeGauge.getId());
-        List<Operation> ops = new ArrayList<>();
-        ops.add(Operation.put(new Bin("type", "TimeGauge")));
-        ops.add(Operation.put(new Bin("ts", wallTime)));
-        ops.add(Operation.put(new Bin("name", name)));
-        ops.add(Operation.put(new Bin("value", value)));
-        addTagOps(timeGauge.getId(), ops);
-
-        return Optional.of(new BatchWrite(
-                config.batchWritePolicy(),
-                getKey(name, wallTime),
-                ops.toArray(new Operation[0])
-        ));
+        return encoder.encode(timeGauge.getId(), SampleType.TIME_GAUGE, publishTimestamp, value);
     }
 
     Optional<BatchRecord> handleFunctionCounter(FunctionCounter counter) {
         double count = counter.count();
         if (!Double.isFinite(count)) return Optional.empty();
-        long wallTime = config().clock().wallTime();
-        String name = getConventionName(counter.getId());
-        List<Operation> ops = new ArrayList<>();
-        ops.add(Operation.put(new Bin("type", "FunctionCounter")));
-        ops.add(Operation.put(new Bin("ts", wallTime)));
-        ops.add(Operation.put(new Bin("name", name)));
-        ops.add(Operation.put(new Bin("count", count)));
-        addTagOps(counter.getId(), ops);
-
-        return Optional.of(new BatchWrite(
-                config.batchWritePolicy(),
-                getKey(name, wallTime),
-                ops.toArray(new Operation[0])
-        ));
+        return encoder.encode(counter.getId(), SampleType.FUNCTION_COUNTER, publishTimestamp, count);
     }
 
     Optional<BatchRecord> handleFunctionTimer(FunctionTimer timer) {
-        long wallTime = config().clock().wallTime();
-        String name = getConventionName(timer.getId());
-        List<Operation> ops = new ArrayList<>();
-        ops.add(Operation.put(new Bin("type", "FunctionTimer")));
-        ops.add(Operation.put(new Bin("ts", wallTime)));
-        ops.add(Operation.put(new Bin("name", name)));
-        ops.add(Operation.put(new Bin("count", timer.count())));
-        ops.add(Operation.put(new Bin("avg", timer.mean(getBaseTimeUnit()))));
-        ops.add(Operation.put(new Bin("sum", timer.totalTime(getBaseTimeUnit()))));
-        addTagOps(timer.getId(), ops);
-
-        return Optional.of(new BatchWrite(
-                config.batchWritePolicy(),
-                getKey(name, wallTime),
-                ops.toArray(new Operation[0])
-        ));
+        return encoder.encode(timer.getId(), SampleType.FUNCTION_TIMER, publishTimestamp,
+                timer.count(),
+                timer.mean(getBaseTimeUnit()),
+                timer.totalTime(getBaseTimeUnit()));
     }
 
     Optional<BatchRecord> handleCustomMetric(Meter meter) {
-        long wallTime = config().clock().wallTime();
-        String name = getConventionName(meter.getId());
-        List<Operation> ops = new ArrayList<>();
-        ops.add(Operation.put(new Bin("type", "Custom")));
-        ops.add(Operation.put(new Bin("ts", wallTime)));
+        List<Measurement> measurements = new ArrayList<>();
         for (Measurement measurement : meter.measure()) {
-            double value = measurement.getValue();
-            if (!Double.isFinite(value)) {
-                continue;
+            if (Double.isFinite(measurement.getValue())) {
+                measurements.add(measurement);
             }
-            ops.add(Operation.put(new Bin(measurement.getStatistic().getTagValueRepresentation(), value)));
         }
-        addTagOps(meter.getId(), ops);
-
-        return Optional.of(new BatchWrite(
-                config.batchWritePolicy(),
-                getKey(name, wallTime),
-                ops.toArray(new Operation[0])
-        ));
-    }
-
-    Key getKey(String meterName, long timestamp) {
-        return new Key(config.namespace(), config.setName(), meterName + "_" + timestamp);
+        Field[] fields = new Field[measurements.size()];
+        double[] values = new double[measurements.size()];
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = Field.of(measurements.get(i).getStatistic());
+            values[i] = measurements.get(i).getValue();
+        }
+        return encoder.encode(meter.getId(), SampleType.CUSTOM, publishTimestamp, fields, values);
     }
 
-    void addTagOps(Meter.Id id, final List<Operation> ops) {
-        getConventionTags(id).stream().map(t ->
-                Operation.put(new Bin("__" + t.getKey(), t.getValue()))).forEach(ops::add);
+    /**
+     * Publishes the last step and stops the registry. The client is closed only if it was created
+     * by the registry, a client passed to the registry remains open.
+     */
+    @Override
+    public void close() {
+        super.close();
+        batchPublisher.close();
+        if (spoolReplayer != null) {
+            spoolReplayer.close();
+        }
+        if (ownsClient) {
+            client.close();
+        }
     }
 
     @Override
@@ -256,4 +219,62 @@ public class AerospikeMeterRegistry extends StepMeterRegistry {
     protected TimeUnit getBaseTimeUnit() {
         return TimeUnit.MILLISECONDS;
     }
+
+    /**
+     * Builds a registry that either creates its own client or shares an existing one.
+     * <p>
+     * With {@link #eventLoops(EventLoops)} set, metric batches are written with the async client API
+     * on the given event loops. A shared client must have been created with the same event loops.
+     */
+    public static class Builder {
+        private final AerospikeConfig config;
+        private Clock clock = Clock.SYSTEM;
+        private ThreadFactory threadFactory = DEFAULT_THREAD_FACTORY;
+        @Nullable
+        private IAerospikeClient client;
+        @Nullable
+        private EventLoops eventLoops;
+
+        public Builder(AerospikeConfig config) {
+            this.config = config;
+        }
+
+        public Builder clock(Clock clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        public Builder threadFactory(ThreadFactory threadFactory) {
+            this.threadFactory = threadFactory;
+            return this;
+        }
+
+        /**
+         * Shares an existing client, which is not closed with the registry.
+         */
+        public Builder client(IAerospikeClient client) {
+            this.client = client;
+            return this;
+        }
+
+        /**
+         * Writes metric batches asynchronously on the given event loops.
+         */
+        public Builder eventLoops(EventLoops eventLoops) {
+            this.eventLoops = eventLoops;
+            return this;
+        }
+
+        public AerospikeMeterRegistry build() {
+            if (client != null) {
+                return new AerospikeMeterRegistry(config, clock, threadFactory, client, eventLoops, false);
+            }
+            ClientPolicy clientPolicy = new ClientPolicy(config.clientPolicy());
+            if (eventLoops != null) {
+                clientPolicy.eventLoops = eventLoops;
+            }
+            return new AerospikeMeterRegistry(config, clock, threadFactory,
+                    new AerospikeClient(clientPolicy, config.hosts()), eventLoops, true);
+        }
+    }
 }
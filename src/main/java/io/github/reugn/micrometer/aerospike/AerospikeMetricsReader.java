@@ -0,0 +1,497 @@
+package io.github.reugn.micrometer.aerospike;
+
+import com.aerospike.client.AerospikeException;
+import com.aerospike.client.IAerospikeClient;
+import com.aerospike.client.Key;
+import com.aerospike.client.Record;
+import com.aerospike.client.cluster.Node;
+import com.aerospike.client.exp.Exp;
+import com.aerospike.client.policy.BatchPolicy;
+import com.aerospike.client.policy.QueryPolicy;
+import com.aerospike.client.query.Filter;
+import com.aerospike.client.query.PartitionFilter;
+import com.aerospike.client.query.RecordSet;
+import com.aerospike.client.query.Statement;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.util.NamedThreadFactory;
+
+import javax.annotation.Nullable;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Consumer;
+
+import static io.github.reugn.micrometer.aerospike.MeterEncoder.DATA_BIN;
+import static io.github.reugn.micrometer.aerospike.MeterEncoder.HISTOGRAM_BIN;
+import static io.github.reugn.micrometer.aerospike.MeterEncoder.INSTANCE_BIN;
+import static io.github.reugn.micrometer.aerospike.MeterEncoder.PERCENTILES_BIN;
+import static io.github.reugn.micrometer.aerospike.MeterEncoder.TAG_BIN_PREFIX;
+
+/**
+ * Reads the samples written by {@link AerospikeMeterRegistry} for a meter name, tags and time range.
+ * <p>
+ * The name, timestamp and tag conditions are sent to the server as an expression filter, so only
+ * the matching records are returned, and the partitions of the set are split into ranges queried
+ * in parallel with {@code queryPartitions}. With a secondary index on the {@code name} bin, the
+ * name condition can use the index instead, see {@link Builder#nameIndex(boolean)}. With series keys,
+ * a single series is read with batch gets of its keys instead, see {@link #readSeries}.
+ * <p>
+ * With a set rotation, the rotated sets of the periods of the time range are queried, see {@link SetRotation}.
+ * <p>
+ * The reader must be configured with the storage mode, encoding, set rotation and set retention
+ * the samples were written with.
+ * Names and tags are matched as written, after the naming convention of the registry. Custom meters
+ * are written without the name bin and cannot be read by name. With packed encoding the tags are
+ * part of the packed sample, so they are matched by the reader instead of the server.
+ * <p>
+ * Queries return the samples of all instances, see {@link MetricSample#getInstance()}. The query
+ * threads are started by the first {@link #read} call.
+ */
+public final class AerospikeMetricsReader implements AutoCloseable {
+
+    private static final ThreadFactory THREAD_FACTORY = new NamedThreadFactory("aerospike-metrics-reader");
+    private static final int DEFAULT_PARALLELISM = 4;
+
+    private final IAerospikeClient client;
+    private final String namespace;
+    private final String setName;
+    private final RotatedSets rotatedSets;
+    private final QueryPolicy queryPolicy;
+    private final BatchPolicy batchPolicy;
+    private final int batchSize;
+    private final boolean bucketed;
+    private final long bucketMillis;
+    private final boolean packed;
+    private final boolean seriesKeys;
+    private final long slotMillis;
+    @Nullable
+    private final String instanceId;
+    private final boolean nameIndex;
+    private final int parallelism;
+    private final ThreadFactory threadFactory;
+
+    // created on the first query, guarded by this
+    private ExecutorService executor;
+    private boolean closed;
+
+    public AerospikeMetricsReader(IAerospikeClient client, AerospikeConfig config) {
+        this(client, config, DEFAULT_PARALLELISM, false, THREAD_FACTORY);
+    }
+
+    private AerospikeMetricsReader(IAerospikeClient client, AerospikeConfig config, int parallelism,
+                                   boolean nameIndex, ThreadFactory threadFactory) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("read parallelism must be positive");
+        }
+        this.client = client;
+        this.namespace = config.namespace();
+        this.setName = config.setName();
+        this.rotatedSets = new RotatedSets(config);
+        this.queryPolicy = config.queryPolicy();
+        this.batchPolicy = config.batchPolicy();
+        this.batchSize = config.batchSize();
+        this.bucketed = config.storageMode() == StorageMode.BUCKETED;
+        this.bucketMillis = config.bucketDuration().toMillis();
+        this.packed = config.packedEncoding();
+        this.seriesKeys = config.seriesKeys();
+        this.slotMillis = bucketed ? bucketMillis : config.step().toMillis();
+        this.instanceId = MeterEncoder.instanceId(config);
+        this.nameIndex = nameIndex;
+        this.parallelism = Math.min(parallelism, Node.PARTITIONS);
+        this.threadFactory = threadFactory;
+    }
+
+    /**
+     * Reads the samples of a meter, ordered by timestamp.
+     *
+     * @param name the meter name
+     * @param tags the tags the samples must have, other tags are not matched
+     * @param from the start of the time range, inclusive
+     * @param to   the end of the time range, exclusive
+     * @return the matching samples
+     */
+    public List<MetricSample> read(String name, Map<String, String> tags, Instant from, Instant to)
+            throws InterruptedException {
+        Queue<MetricSample> samples = new ConcurrentLinkedQueue<>();
+        read(name, tags, from, to, samples::add);
+        List<MetricSample> sorted = new ArrayList<>(samples);
+        sorted.sort(Comparator.comparingLong(MetricSample::getTimestamp));
+        return sorted;
+    }
+
+    /**
+     * Streams the samples of a meter as the partition queries return them, in no particular order.
+     *
+     * @param consumer receives the matching samples, called concurrently by the query threads
+     * @see #read(String, Map, Instant, Instant)
+     */
+    public void read(String name, Map<String, String> tags, Instant from, Instant to,
+                     Consumer<MetricSample> consumer) throws InterruptedException {
+        long fromMillis = from.toEpochMilli();
+        long toMillis = to.toEpochMilli();
+        if (toMillis <= fromMillis) {
+            return;
+        }
+        QueryPolicy policy = new QueryPolicy(queryPolicy);
+        policy.filterExp = Exp.build(filter(name, tags, fromMillis, toMillis));
+        Query query = new Query(name, tags, fromMillis, toMillis, consumer);
+
+        ExecutorService executor = executor();
+        List<String> setNames = rotatedSets.setNames(firstRecordTimestamp(fromMillis), toMillis);
+        List<Future<?>> futures = new ArrayList<>(parallelism * setNames.size());
+        for (String set : setNames) {
+            int begin = 0;
+            for (int i = 0; i < parallelism; i++) {
+                int count = Node.PARTITIONS / parallelism + (i < Node.PARTITIONS % parallelism ? 1 : 0);
+                PartitionFilter partitions = PartitionFilter.range(begin, count);
+                futures.add(executor.submit(() -> query(policy, set, partitions, query)));
+                begin += count;
+            }
+        }
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new AerospikeException(cause);
+        } finally {
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Reads a single series with batch gets of the keys of the time range, without a query.
+     * Requires {@link AerospikeConfig#seriesKeys()}, and reads the series of the configured
+     * {@link AerospikeConfig#instanceId()}.
+     *
+     * @param name the meter name
+     * @param tags all tags of the series
+     * @param from the start of the time range, inclusive
+     * @param to   the end of the time range, exclusive
+     * @return the samples of the series, ordered by timestamp
+     * @throws IllegalStateException if series keys are not enabled
+     */
+    public List<MetricSample> readSeries(String name, Map<String, String> tags, Instant from, Instant to) {
+        if (!seriesKeys) {
+            throw new IllegalStateException("series keys are not enabled");
+        }
+        long fromMillis = from.toEpochMilli();
+        long toMillis = to.toEpochMilli();
+        if (toMillis <= fromMillis) {
+            return Collections.emptyList();
+        }
+        List<Tag> sortedTags = new ArrayList<>(tags.size());
+        // the registry writes the tags sorted by key
+        new TreeMap<>(tags).forEach((key, value) -> sortedTags.add(Tag.of(key, value)));
+        String seriesId = MeterEncoder.instanceKey(MeterEncoder.seriesId(name, sortedTags), instanceId);
+        List<MetricSample> samples = new ArrayList<>();
+        Query query = new Query(name, tags, fromMillis, toMillis, samples::add);
+
+        long first = Math.floorDiv(fromMillis, slotMillis);
+        long last = Math.floorDiv(toMillis - 1, slotMillis);
+        for (long slot = first; slot <= last; slot += batchSize) {
+            Key[] keys = new Key[(int) Math.min(batchSize, last - slot + 1)];
+            for (int i = 0; i < keys.length; i++) {
+                String set = rotatedSets.setName((slot + i) * slotMillis);
+                keys[i] = new Key(namespace, set, MeterEncoder.seriesKey(seriesId, slot + i));
+            }
+            for (Record record : client.get(batchPolicy, keys)) {
+                if (record != null) {
+                    decode(record, query);
+                }
+            }
+        }
+        samples.sort(Comparator.comparingLong(MetricSample::getTimestamp));
+        return samples;
+    }
+
+    private synchronized ExecutorService executor() {
+        if (closed) {
+            throw new IllegalStateException("reader is closed");
+        }
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(parallelism, threadFactory);
+        }
+        return executor;
+    }
+
+    private Exp filter(String name, Map<String, String> tags, long from, long to) {
+        List<Exp> conditions = new ArrayList<>(3 + tags.size());
+        if (!nameIndex) {
+            conditions.add(Exp.eq(Exp.stringBin("name"), Exp.val(name)));
+        }
+        conditions.add(Exp.ge(Exp.intBin("ts"), Exp.val(firstRecordTimestamp(from))));
+        conditions.add(Exp.lt(Exp.intBin("ts"), Exp.val(to)));
+        if (!packed) {
+            for (Map.Entry<String, String> tag : tags.entrySet()) {
+                conditions.add(Exp.eq(Exp.stringBin(TAG_BIN_PREFIX + tag.getKey()), Exp.val(tag.getValue())));
+            }
+        }
+        return Exp.and(conditions.toArray(new Exp[0]));
+    }
+
+    /**
+     * Returns the earliest timestamp bin value of the records holding samples from the given time.
+     */
+    private long firstRecordTimestamp(long from) {
+        // the timestamp bin of a bucketed record holds the start of its bucket
+        return bucketed ? from - Math.floorMod(from, bucketMillis) : from;
+    }
+
+    private void query(QueryPolicy policy, String set, PartitionFilter partitions, Query query) {
+        Statement statement = new Statement();
+        statement.setNamespace(namespace);
+        statement.setSetName(set);
+        if (nameIndex) {
+            statement.setFilter(Filter.equal("name", query.name));
+        }
+        try (RecordSet records = client.queryPartitions(policy, statement, partitions)) {
+            while (records.next()) {
+                decode(records.getRecord(), query);
+            }
+        }
+    }
+
+    /**
+     * Decodes the samples of a record, checking the conditions of the query again,
+     * as a bucketed record also holds the samples around the time range.
+     */
+    private void decode(Record record, Query query) {
+        // custom meters are written without the name bin
+        String recordName = record.getString("name");
+        if (recordName != null && !query.name.equals(recordName)) {
+            return;
+        }
+        long timestamp = record.getLong("ts");
+        if (packed) {
+            Object data = record.getValue(DATA_BIN);
+            if (bucketed && data instanceof Map) {
+                for (Map.Entry<?, ?> sample : ((Map<?, ?>) data).entrySet()) {
+                    if (!(sample.getKey() instanceof Number) || !(sample.getValue() instanceof byte[])) {
+                        continue;
+                    }
+                    long ts = ((Number) sample.getKey()).longValue();
+                    if (query.contains(ts)) {
+                        accept(PackedSample.decode((byte[]) sample.getValue(), timestamp), record, query);
+                    }
+                }
+            } else if (data instanceof byte[]) {
+                accept(PackedSample.decode((byte[]) data, timestamp), record, query);
+            }
+            return;
+        }
+
+        Map<String, String> tags = new LinkedHashMap<>();
+        Map<String, Object> valueBins = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> bin : record.bins.entrySet()) {
+            String binName = bin.getKey();
+            Object value = bin.getValue();
+            if (binName.startsWith(TAG_BIN_PREFIX)) {
+                tags.put(binName.substring(TAG_BIN_PREFIX.length()), String.valueOf(value));
+            } else if (isValueBin(binName) && (bucketed ? value instanceof Map : value instanceof Number)) {
+                // skips the bins of records written in the other storage mode
+                valueBins.put(binName, value);
+            }
+        }
+        if (valueBins.isEmpty() || !query.matches(tags)) {
+            return;
+        }
+        String instance = record.getString(INSTANCE_BIN);
+        String type = record.getString("type");
+        if (!bucketed) {
+            if (query.contains(timestamp)) {
+                Map<String, Double> values = new LinkedHashMap<>();
+                valueBins.forEach((binName, value) -> values.put(binName, ((Number) value).doubleValue()));
+                query.consumer.accept(new MetricSample(query.name, instance, type, timestamp, tags, values,
+                        percentiles(record.getValue(PERCENTILES_BIN)), histogram(record.getValue(HISTOGRAM_BIN))));
+            }
+            return;
+        }
+        TreeSet<Long> timestamps = new TreeSet<>();
+        for (Object samples : valueBins.values()) {
+            for (Object ts : ((Map<?, ?>) samples).keySet()) {
+                if (!(ts instanceof Number)) {
+                    continue;
+                }
+                long sampleTimestamp = ((Number) ts).longValue();
+                if (query.contains(sampleTimestamp)) {
+                    timestamps.add(sampleTimestamp);
+                }
+            }
+        }
+        for (long ts : timestamps) {
+            Map<String, Double> values = new LinkedHashMap<>();
+            valueBins.forEach((binName, samples) -> {
+                Object value = ((Map<?, ?>) samples).get(ts);
+                if (value instanceof Number) {
+                    values.put(binName, ((Number) value).doubleValue());
+                }
+            });
+            query.consumer.accept(new MetricSample(query.name, instance, type, ts, tags, values,
+                    percentiles(at(record.getValue(PERCENTILES_BIN), ts)),
+                    histogram(at(record.getValue(HISTOGRAM_BIN), ts))));
+        }
+    }
+
+    private void accept(PackedSample sample, Record record, Query query) {
+        long ts = sample.getTimestamp();
+        if (!query.contains(ts) || !query.matches(sample.getTags())) {
+            return;
+        }
+        Object percentiles = record.getValue(PERCENTILES_BIN);
+        Object histogram = record.getValue(HISTOGRAM_BIN);
+        query.consumer.accept(new MetricSample(query.name, record.getString(INSTANCE_BIN), sample.getType(), ts,
+                sample.getTags(), sample.getValues(),
+                percentiles(bucketed ? at(percentiles, ts) : percentiles),
+                histogram(bucketed ? at(histogram, ts) : histogram)));
+    }
+
+    private static boolean isValueBin(String binName) {
+        switch (binName) {
+            case "type":
+            case "name":
+            case "ts":
+            case INSTANCE_BIN:
+            case DATA_BIN:
+            case PERCENTILES_BIN:
+            case HISTOGRAM_BIN:
+                return false;
+            default:
+                return true;
+        }
+    }
+
+    private static Object at(Object samples, long timestamp) {
+        return samples instanceof Map ? ((Map<?, ?>) samples).get(timestamp) : null;
+    }
+
+    private static Map<Double, Double> percentiles(Object bin) {
+        if (!(bin instanceof Map)) {
+            return Collections.emptyMap();
+        }
+        Map<Double, Double> percentiles = new TreeMap<>();
+        ((Map<?, ?>) bin).forEach((percentile, value) -> {
+            if (percentile instanceof Number && value instanceof Number) {
+                percentiles.put(((Number) percentile).doubleValue(), ((Number) value).doubleValue());
+            }
+        });
+        return percentiles;
+    }
+
+    private static Map<Double, Long> histogram(Object bin) {
+        if (!(bin instanceof Map)) {
+            return Collections.emptyMap();
+        }
+        Map<Double, Long> histogram = new TreeMap<>();
+        ((Map<?, ?>) bin).forEach((bucket, count) -> {
+            if (bucket instanceof Number && count instanceof Number) {
+                histogram.put(((Number) bucket).doubleValue(), ((Number) count).longValue());
+            }
+        });
+        return histogram;
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * The conditions of a read.
+     */
+    private static final class Query {
+        private final String name;
+        private final Map<String, String> tags;
+        private final long from;
+        private final long to;
+        private final Consumer<MetricSample> consumer;
+
+        Query(String name, Map<String, String> tags, long from, long to, Consumer<MetricSample> consumer) {
+            this.name = name;
+            this.tags = tags;
+            this.from = from;
+            this.to = to;
+            this.consumer = consumer;
+        }
+
+        boolean contains(long timestamp) {
+            return timestamp >= from && timestamp < to;
+        }
+
+        boolean matches(Map<String, String> sampleTags) {
+            for (Map.Entry<String, String> tag : tags.entrySet()) {
+                if (!tag.getValue().equals(sampleTags.get(tag.getKey()))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Builds a reader with a custom query parallelism or secondary index use.
+     */
+    public static class Builder {
+        private final IAerospikeClient client;
+        private final AerospikeConfig config;
+        private int parallelism = DEFAULT_PARALLELISM;
+        private boolean nameIndex;
+        private ThreadFactory threadFactory = THREAD_FACTORY;
+
+        public Builder(IAerospikeClient client, AerospikeConfig config) {
+            this.client = client;
+            this.config = config;
+        }
+
+        /**
+         * Sets the number of partition ranges queried in parallel.
+         */
+        public Builder parallelism(int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * Uses a string secondary index on the {@code name} bin to select the meter records,
+         * instead of an expression filter.
+         */
+        public Builder nameIndex(boolean nameIndex) {
+            this.nameIndex = nameIndex;
+            return this;
+        }
+
+        public Builder threadFactory(ThreadFactory threadFactory) {
+            this.threadFactory = threadFactory;
+            return this;
+        }
+
+        public AerospikeMetricsReader build() {
+            return new AerospikeMetricsReader(client, config, parallelism, nameIndex, threadFactory);
+        }
+    }
+}
@@ -2,15 +2,34 @@ package io.github.reugn.micrometer.aerospike;
 
 import io.micrometer.core.instrument.Meter;
 import io.micrometer.core.instrument.config.NamingConvention;
-import io.micrometer.core.instrument.util.StringEscapeUtils;
 import io.micrometer.core.lang.Nullable;
 
 import javax.annotation.Nonnull;
-import java.util.regex.Pattern;
 
 public class AerospikeNamingConvention implements NamingConvention {
 
-    private static final Pattern BLACKLISTED_CHARS = Pattern.compile("[{}():,=\\[\\]]");
+    /**
+     * The replacement of each ASCII character, null to keep it: JSON escapes as in
+     * {@code StringEscapeUtils.escapeJson}, and an underscore for the blacklisted characters
+     * {@code {}():,=[]}.
+     */
+    private static final String[] REPLACEMENTS = new String[128];
+
+    static {
+        for (int c = 0; c < 0x20; c++) {
+            REPLACEMENTS[c] = String.format("\\u%04x", c);
+        }
+        REPLACEMENTS['"'] = "\\\"";
+        REPLACEMENTS['\\'] = "\\\\";
+        REPLACEMENTS['\t'] = "\\t";
+        REPLACEMENTS['\b'] = "\\b";
+        REPLACEMENTS['\n'] = "\\n";
+        REPLACEMENTS['\r'] = "\\r";
+        REPLACEMENTS['\f'] = "\\f";
+        for (char c : "{}():,=[]".toCharArray()) {
+            REPLACEMENTS[c] = "_";
+        }
+    }
 
     private final NamingConvention delegate;
 
@@ -22,9 +41,42 @@ public class AerospikeNamingConvention implements NamingConvention {
         this.delegate = delegate;
     }
 
-    private String format(String name) {
-        String normalized = StringEscapeUtils.escapeJson(name);
-        return BLACKLISTED_CHARS.matcher(normalized).replaceAll("_");
+    /**
+     * Escapes and replaces the blacklisted characters in a single pass,
+     * returning the same instance if there is nothing to replace.
+     */
+    static String format(@Nullable String name) {
+        if (name == null) {
+            return "";
+        }
+        int length = name.length();
+        StringBuilder formatted = null;
+        int last = 0;
+        for (int i = 0; i < length; i++) {
+            char c = name.charAt(i);
+            String replacement;
+            if (c < 128) {
+                replacement = REPLACEMENTS[c];
+            } else if (c == '\u2028') {
+                replacement = "\\u2028";
+            } else if (c == '\u2029') {
+                replacement = "\\u2029";
+            } else {
+                replacement = null;
+            }
+            if (replacement == null) {
+                continue;
+            }
+            if (formatted == null) {
+                formatted = new StringBuilder(length + 16);
+            }
+            formatted.append(name, last, i).append(replacement);
+            last = i + 1;
+        }
+        if (formatted == null) {
+            return name;
+        }
+        return formatted.append(name, last, length).toString();
     }
 
     @Override
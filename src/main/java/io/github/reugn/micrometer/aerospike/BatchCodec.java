@@ -0,0 +1,201 @@
+package io.github.reugn.micrometer.aerospike;
+
+import com.aerospike.client.BatchRecord;
+import com.aerospike.client.BatchWrite;
+import com.aerospike.client.Key;
+import com.aerospike.client.Operation;
+import com.aerospike.client.Value;
+import com.aerospike.client.cdt.MapOrder;
+import com.aerospike.client.command.ParticleType;
+import com.aerospike.client.policy.BatchWritePolicy;
+import com.aerospike.client.util.Packer;
+import com.aerospike.client.util.Unpacker;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serializes metric batch writes for the {@link BatchSpool}.
+ * <p>
+ * A batch is stored as the record count followed by each record's namespace, set, user key, expiration
+ * and operations. A record is replayed with the spool write policy, unless its expiration differs, such
+ * as the expiration of a rollup tier. Operation values are stored by particle type; maps and lists are stored msgpack
+ * encoded, as sent to the server.
+ */
+final class BatchCodec {
+
+    private static final Operation.Type[] OPERATION_TYPES = Operation.Type.values();
+
+    private static final int KEY_STRING = 0;
+    private static final int KEY_LONG = 1;
+
+    private BatchCodec() {
+    }
+
+    /**
+     * Encodes the batch writes of the batch, other batch records are skipped.
+     */
+    static byte[] encode(List<BatchRecord> batch) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(batch.size() * 128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            int count = 0;
+            for (BatchRecord record : batch) {
+                if (record instanceof BatchWrite) {
+                    count++;
+                }
+            }
+            out.writeInt(count);
+            for (BatchRecord record : batch) {
+                if (record instanceof BatchWrite) {
+                    writeRecord(out, (BatchWrite) record);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static List<BatchRecord> decode(byte[] data, BatchWritePolicy writePolicy) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            int count = in.readInt();
+            List<BatchRecord> batch = new ArrayList<>(count);
+            Map<Integer, BatchWritePolicy> policies = new HashMap<>();
+            policies.put(writePolicy.expiration, writePolicy);
+            for (int i = 0; i < count; i++) {
+                batch.add(readRecord(in, writePolicy, policies));
+            }
+            return batch;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeRecord(DataOutputStream out, BatchWrite record) throws IOException {
+        Key key = record.key;
+        out.writeUTF(key.namespace);
+        out.writeUTF(key.setName == null ? "" : key.setName);
+        Object userKey = key.userKey == null ? null : key.userKey.getObject();
+        if (userKey instanceof Number) {
+            out.writeByte(KEY_LONG);
+            out.writeLong(((Number) userKey).longValue());
+        } else if (userKey instanceof String) {
+            out.writeByte(KEY_STRING);
+            out.writeUTF((String) userKey);
+        } else {
+            throw new IllegalArgumentException("Unsupported user key " + key);
+        }
+        out.writeBoolean(record.policy != null);
+        if (record.policy != null) {
+            out.writeInt(record.policy.expiration);
+        }
+        out.writeShort(record.ops.length);
+        for (Operation op : record.ops) {
+            out.writeByte(op.type.ordinal());
+            out.writeBoolean(op.binName != null);
+            if (op.binName != null) {
+                out.writeUTF(op.binName);
+            }
+            writeValue(out, op.value);
+        }
+    }
+
+    private static BatchWrite readRecord(DataInputStream in, BatchWritePolicy writePolicy,
+                                         Map<Integer, BatchWritePolicy> policies) throws IOException {
+        String namespace = in.readUTF();
+        String setName = in.readUTF();
+        Key key = in.readByte() == KEY_LONG
+                ? new Key(namespace, setName, in.readLong())
+                : new Key(namespace, setName, in.readUTF());
+        BatchWritePolicy policy = writePolicy;
+        if (in.readBoolean()) {
+            policy = policies.computeIfAbsent(in.readInt(), expiration -> {
+                BatchWritePolicy copy = new BatchWritePolicy(writePolicy);
+                copy.expiration = expiration;
+                return copy;
+            });
+        }
+        Operation[] ops = new Operation[in.readShort()];
+        for (int i = 0; i < ops.length; i++) {
+            Operation.Type type = OPERATION_TYPES[in.readByte()];
+            String binName = in.readBoolean() ? in.readUTF() : null;
+            ops[i] = new Operation(type, binName, readValue(in));
+        }
+        return new BatchWrite(policy, key, ops);
+    }
+
+    private static void writeValue(DataOutputStream out, Value value) throws IOException {
+        int type = value == null ? ParticleType.NULL : value.getType();
+        out.writeByte(type);
+        switch (type) {
+            case ParticleType.NULL:
+                break;
+            case ParticleType.INTEGER:
+                out.writeLong(value.toLong());
+                break;
+            case ParticleType.DOUBLE:
+                out.writeDouble(((Number) value.getObject()).doubleValue());
+                break;
+            case ParticleType.STRING:
+                writeBytes(out, ((String) value.getObject()).getBytes(StandardCharsets.UTF_8));
+                break;
+            case ParticleType.BLOB:
+                writeBytes(out, (byte[]) value.getObject());
+                break;
+            case ParticleType.MAP:
+                writeBytes(out, Packer.pack((Map<?, ?>) value.getObject(), MapOrder.UNORDERED));
+                break;
+            case ParticleType.LIST:
+                writeBytes(out, Packer.pack((List<?>) value.getObject()));
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported value type " + type);
+        }
+    }
+
+    private static Value readValue(DataInputStream in) throws IOException {
+        int type = in.readByte();
+        switch (type) {
+            case ParticleType.NULL:
+                return Value.getAsNull();
+            case ParticleType.INTEGER:
+                return Value.get(in.readLong());
+            case ParticleType.DOUBLE:
+                return Value.get(in.readDouble());
+            case ParticleType.STRING:
+                return Value.get(new String(readBytes(in), StandardCharsets.UTF_8));
+            case ParticleType.BLOB:
+                return Value.get(readBytes(in));
+            case ParticleType.MAP: {
+                byte[] packed = readBytes(in);
+                return Value.get((Map<?, ?>) Unpacker.unpackObjectMap(packed, 0, packed.length));
+            }
+            case ParticleType.LIST: {
+                byte[] packed = readBytes(in);
+                return Value.get((List<?>) Unpacker.unpackObjectList(packed, 0, packed.length));
+            }
+            default:
+                throw new IllegalArgumentException("Unsupported value type " + type);
+        }
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return bytes;
+    }
+}
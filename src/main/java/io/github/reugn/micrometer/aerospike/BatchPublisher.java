@@ -0,0 +1,377 @@
+package io.github.reugn.micrometer.aerospike;
+
+import com.aerospike.client.AerospikeException;
+import com.aerospike.client.BatchRead;
+import com.aerospike.client.BatchRecord;
+import com.aerospike.client.BatchWrite;
+import com.aerospike.client.IAerospikeClient;
+import com.aerospike.client.Operation;
+import com.aerospike.client.ResultCode;
+import com.aerospike.client.async.EventLoops;
+import com.aerospike.client.listener.BatchOperateListListener;
+import com.aerospike.client.policy.BatchPolicy;
+import com.aerospike.client.util.Unpacker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Writes metric batches with a bounded number of batches in flight.
+ * <p>
+ * {@link #submit(List, long)} blocks while the configured number of batches is in flight, so encoding
+ * never runs ahead of the cluster, and {@link #await(Duration)} waits for the in-flight batches
+ * of the current publish step.
+ * <p>
+ * Batches are written synchronously by a pool of writer threads, or with the async client API
+ * when event loops are given, in which case no threads are started.
+ * <p>
+ * Records rejected with a transient error, such as a timeout or device overload, are written
+ * again with an exponential, jittered backoff while the retries and the deadline of the batch
+ * allow. Only the rejected records are retried, and a record whose write may have been applied
+ * is retried only if writing it again does not change the result. The records that could not
+ * be written are handed to the failure consumer.
+ */
+final class BatchPublisher implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchPublisher.class);
+
+    private static final int MAP_SET_TYPE = 64;
+    private static final int MAP_REPLACE_ITEMS = 70;
+
+    private final IAerospikeClient client;
+    private final BatchPolicy batchPolicy;
+    private final int concurrency;
+    private final int maxRetries;
+    private final long retryBackoffNanos;
+    private final Semaphore inFlight;
+    @Nullable
+    private final EventLoops eventLoops;
+    @Nullable
+    private final ExecutorService executor;
+    private final Counter batchFailures;
+    private final Counter recordFailures;
+    private final Counter recordRetries;
+    private final Counter recordDrops;
+    private final Consumer<List<BatchRecord>> failed;
+
+    BatchPublisher(IAerospikeClient client, AerospikeConfig config, ThreadFactory threadFactory,
+                   MeterRegistry registry) {
+        this(client, config, threadFactory, null, registry, batch -> {
+        });
+    }
+
+    /**
+     * @param failed receives the records that could not be written and are safe to write again later
+     */
+    BatchPublisher(IAerospikeClient client, AerospikeConfig config, ThreadFactory threadFactory,
+                   @Nullable EventLoops eventLoops, MeterRegistry registry, Consumer<List<BatchRecord>> failed) {
+        if (config.publishConcurrency() < 1) {
+            throw new IllegalArgumentException("publish concurrency must be positive");
+        }
+        if (config.publishRetries() < 0) {
+            throw new IllegalArgumentException("publish retries must not be negative");
+        }
+        this.client = client;
+        this.batchPolicy = config.batchPolicy();
+        this.concurrency = config.publishConcurrency();
+        this.maxRetries = config.publishRetries();
+        this.retryBackoffNanos = config.retryBackoff().toNanos();
+        this.inFlight = new Semaphore(concurrency);
+        this.eventLoops = eventLoops;
+        this.executor = eventLoops != null ? null : new ThreadPoolExecutor(concurrency, concurrency,
+                0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), threadFactory);
+        this.batchFailures = Counter.builder("aerospike.registry.batch.failures")
+                .description("Metric batch writes that failed")
+                .register(registry);
+        this.recordFailures = Counter.builder("aerospike.registry.record.failures")
+                .description("Metric record writes rejected within written batches")
+                .register(registry);
+        this.recordRetries = Counter.builder("aerospike.registry.record.retries")
+                .description("Metric records written again after a transient failure")
+                .register(registry);
+        this.recordDrops = Counter.builder("aerospike.registry.record.drops")
+                .description("Metric records that could not be written within the retries")
+                .register(registry);
+        this.failed = failed;
+    }
+
+    /**
+     * Schedules a batch write, waiting for a free slot if the maximum number of batches is in flight.
+     *
+     * @param deadline the {@link System#nanoTime()} after which failed records are not retried
+     */
+    void submit(List<BatchRecord> batch, long deadline) throws InterruptedException {
+        inFlight.acquire();
+        if (executor == null) {
+            writeAsync(batch, 0, deadline);
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    write(batch, deadline);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Waits for the in-flight batches to complete.
+     *
+     * @return false if the batches did not complete in time
+     */
+    boolean await(Duration timeout) throws InterruptedException {
+        if (!inFlight.tryAcquire(concurrency, timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+            return false;
+        }
+        inFlight.release(concurrency);
+        return true;
+    }
+
+    private void write(List<BatchRecord> batch, long deadline) {
+        List<BatchRecord> pending = batch;
+        for (int attempt = 0; ; attempt++) {
+            Throwable error = null;
+            try {
+                if (client.operate(batchPolicy, pending)) {
+                    return;
+                }
+            } catch (Throwable t) {
+                error = t;
+            }
+            long backoff = backoff(attempt);
+            pending = failures(pending, error, attempt, backoff, deadline);
+            if (pending.isEmpty()) {
+                return;
+            }
+            try {
+                TimeUnit.NANOSECONDS.sleep(backoff);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                recordDrops.increment(pending.size());
+                failed.accept(pending);
+                return;
+            }
+        }
+    }
+
+    private void writeAsync(List<BatchRecord> batch, int attempt, long deadline) {
+        try {
+            client.operate(eventLoops.next(), new BatchOperateListListener() {
+                @Override
+                public void onSuccess(List<BatchRecord> records, boolean status) {
+                    completed(status ? null : records, null);
+                }
+
+                @Override
+                public void onFailure(AerospikeException e) {
+                    completed(batch, e);
+                }
+
+                private void completed(@Nullable List<BatchRecord> records, @Nullable Throwable error) {
+                    try {
+                        if (records == null) {
+                            inFlight.release();
+                            return;
+                        }
+                        long backoff = backoff(attempt);
+                        List<BatchRecord> retry = failures(records, error, attempt, backoff, deadline);
+                        if (retry.isEmpty()) {
+                            inFlight.release();
+                            return;
+                        }
+                        // keep the slot until the retry completes, without blocking the event loop
+                        eventLoops.next().schedule(() -> writeAsync(retry, attempt + 1, deadline),
+                                backoff, TimeUnit.NANOSECONDS);
+                    } catch (Throwable t) {
+                        logger.warn("Failed to retry metrics", t);
+                        inFlight.release();
+                    }
+                }
+            }, batchPolicy, batch);
+        } catch (Throwable t) {
+            // the command was not submitted, so the listener will not be notified
+            try {
+                failures(batch, t, maxRetries, 0, deadline);
+            } finally {
+                inFlight.release();
+            }
+        }
+    }
+
+    /**
+     * Counts the failures of a write attempt and hands the failed records that will not be retried
+     * to the failure consumer, if writing them later is safe: the error is transient, and the record
+     * was either not applied or is idempotent. The other failed records are dropped.
+     *
+     * @param error   the error of the batch, or null if the batch was written with rejected records
+     * @param backoff the delay before the retry
+     * @return the records to write again after the backoff
+     */
+    private List<BatchRecord> failures(List<BatchRecord> batch, @Nullable Throwable error, int attempt,
+                                       long backoff, long deadline) {
+        List<BatchRecord> rejected = new ArrayList<>();
+        for (BatchRecord record : batch) {
+            if (record.resultCode != ResultCode.OK) {
+                rejected.add(record);
+            }
+        }
+        if (error != null) {
+            batchFailures.increment();
+        } else {
+            recordFailures.increment(rejected.size());
+        }
+
+        boolean retry = attempt < maxRetries && deadline - System.nanoTime() > backoff;
+        List<BatchRecord> retries = new ArrayList<>();
+        List<BatchRecord> drops = new ArrayList<>();
+        for (BatchRecord record : rejected) {
+            if (retry && retryable(record, error)) {
+                retries.add(record);
+            } else {
+                drops.add(record);
+            }
+        }
+        if (!retries.isEmpty()) {
+            recordRetries.increment(retries.size());
+            logger.debug("Retrying {} of {} metrics (attempt {})", retries.size(), batch.size(), attempt + 1);
+        }
+        if (!drops.isEmpty()) {
+            recordDrops.increment(drops.size());
+            if (error != null) {
+                logger.warn("Failed to write metrics to Aerospike", error);
+            } else {
+                logger.warn("Failed to write {} of {} metrics to Aerospike", drops.size(), batch.size());
+            }
+            List<BatchRecord> deferred = new ArrayList<>(drops.size());
+            for (BatchRecord record : drops) {
+                if (retryable(record, error)) {
+                    deferred.add(record);
+                }
+            }
+            if (!deferred.isEmpty()) {
+                failed.accept(deferred);
+            }
+        }
+        return retries;
+    }
+
+    /**
+     * Returns the exponential backoff of a retry, with half of it randomized, so that the writers
+     * of many instances do not retry in lockstep.
+     */
+    private long backoff(int attempt) {
+        long backoff = retryBackoffNanos << Math.min(attempt, 16);
+        if (backoff <= 1) {
+            return Math.max(backoff, 0);
+        }
+        long half = backoff >>> 1;
+        return half + ThreadLocalRandom.current().nextLong(backoff - half + 1);
+    }
+
+    private static boolean retryable(BatchRecord record, @Nullable Throwable error) {
+        int resultCode = record.resultCode;
+        boolean inDoubt = record.inDoubt;
+        if (error != null) {
+            if (!(error instanceof AerospikeException)) {
+                return false;
+            }
+            resultCode = ((AerospikeException) error).getResultCode();
+            inDoubt |= ((AerospikeException) error).getInDoubt();
+        }
+        return isTransient(resultCode) && (!inDoubt || idempotent(record));
+    }
+
+    /**
+     * Returns whether the result code of a rejected record is expected to clear on a later attempt.
+     */
+    static boolean isTransient(int resultCode) {
+        switch (resultCode) {
+            case ResultCode.TIMEOUT:
+            case ResultCode.DEVICE_OVERLOAD:
+            case ResultCode.KEY_BUSY:
+            case ResultCode.PARTITION_UNAVAILABLE:
+            case ResultCode.BATCH_QUEUES_FULL:
+            case ResultCode.BATCH_MAX_REQUESTS_EXCEEDED:
+            case ResultCode.SERVER_NOT_AVAILABLE:
+            case ResultCode.NO_MORE_CONNECTIONS:
+            case ResultCode.MAX_ERROR_RATE:
+            case ResultCode.MAX_RETRIES_EXCEEDED:
+            case ResultCode.NO_RESPONSE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Returns whether applying the record twice has the same result as applying it once, which is
+     * not the case for the additions to the shared merge and aggregate records.
+     */
+    private static boolean idempotent(BatchRecord record) {
+        if (!(record instanceof BatchWrite)) {
+            return record instanceof BatchRead;
+        }
+        for (Operation op : ((BatchWrite) record).ops) {
+            switch (op.type) {
+                case WRITE:
+                case READ:
+                case READ_HEADER:
+                case TOUCH:
+                case DELETE:
+                case EXP_READ:
+                case EXP_MODIFY:
+                    break;
+                case MAP_MODIFY:
+                    if (!setsMapItems(op)) {
+                        return false;
+                    }
+                    break;
+                default:
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean setsMapItems(Operation op) {
+        Object packed = op.value == null ? null : op.value.getObject();
+        if (!(packed instanceof byte[])) {
+            return false;
+        }
+        byte[] bytes = (byte[]) packed;
+        List<?> args = (List<?>) Unpacker.unpackObjectList(bytes, 0, bytes.length);
+        if (args.isEmpty() || !(args.get(0) instanceof Number)) {
+            return false;
+        }
+        int command = ((Number) args.get(0)).intValue();
+        return command >= MAP_SET_TYPE && command <= MAP_REPLACE_ITEMS;
+    }
+
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+}
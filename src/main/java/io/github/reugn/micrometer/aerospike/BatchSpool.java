@@ -0,0 +1,251 @@
+package io.github.reugn.micrometer.aerospike;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * A bounded on-disk queue of encoded metric batches, kept in memory-mapped append-only segment files.
+ * <p>
+ * Each segment starts with the read position of its oldest unread entry, followed by entries
+ * of a length, the time the batch was spooled and the batch bytes; a zero length marks the end.
+ * The read position is stored in the segment, so replayed batches are not replayed again after
+ * a restart. When the segments reach the size cap, the oldest segment is dropped along with its
+ * unread batches.
+ */
+final class BatchSpool implements Closeable {
+
+    private static final String SUFFIX = ".spool";
+    private static final int SEGMENT_HEADER = 4;
+    private static final int ENTRY_HEADER = 12;
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final int maxSegments;
+    private final Deque<Segment> segments = new ArrayDeque<>();
+
+    private long nextSequence;
+    private long depth;
+    private long evicted;
+
+    BatchSpool(Path directory, long maxBytes, int segmentBytes) {
+        if (segmentBytes <= SEGMENT_HEADER + ENTRY_HEADER) {
+            throw new IllegalArgumentException("spool segment size is too small");
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = (int) Math.max(1, maxBytes / segmentBytes);
+        try {
+            Files.createDirectories(directory);
+            open();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Appends a batch, dropping the oldest segment if the spool is full.
+     *
+     * @return false if the batch does not fit in a segment
+     */
+    synchronized boolean append(byte[] batch, long timestamp) {
+        int size = ENTRY_HEADER + batch.length;
+        if (SEGMENT_HEADER + size > segmentBytes) {
+            return false;
+        }
+        Segment segment = segments.peekLast();
+        if (segment == null || segment.writePosition + size > segmentBytes) {
+            segment = newSegment();
+        }
+        MappedByteBuffer buffer = segment.buffer;
+        buffer.putLong(segment.writePosition + 4, timestamp);
+        buffer.position(segment.writePosition + ENTRY_HEADER);
+        buffer.put(batch);
+        // the length is written last, so a partially written entry is not read after a crash
+        buffer.putInt(segment.writePosition, batch.length);
+        segment.writePosition += size;
+        segment.entries++;
+        depth++;
+        return true;
+    }
+
+    /**
+     * Returns the oldest unread batch without removing it, or null if the spool is empty.
+     */
+    synchronized byte[] peek() {
+        Segment segment = oldestUnread();
+        if (segment == null) {
+            return null;
+        }
+        MappedByteBuffer buffer = segment.buffer;
+        byte[] batch = new byte[buffer.getInt(segment.readPosition)];
+        buffer.position(segment.readPosition + ENTRY_HEADER);
+        buffer.get(batch);
+        return batch;
+    }
+
+    /**
+     * Removes the oldest unread batch.
+     */
+    synchronized void remove() {
+        Segment segment = oldestUnread();
+        if (segment == null) {
+            return;
+        }
+        segment.readPosition += ENTRY_HEADER + segment.buffer.getInt(segment.readPosition);
+        segment.buffer.putInt(0, segment.readPosition);
+        segment.entries--;
+        depth--;
+        if (segment.entries == 0 && segment != segments.peekLast()) {
+            segments.remove(segment);
+            delete(segment);
+        }
+    }
+
+    /**
+     * Returns the time the oldest unread batch was spooled, or -1 if the spool is empty.
+     */
+    synchronized long oldestTimestamp() {
+        Segment segment = oldestUnread();
+        return segment == null ? -1 : segment.buffer.getLong(segment.readPosition + 4);
+    }
+
+    synchronized long depth() {
+        return depth;
+    }
+
+    /**
+     * Returns the number of unread batches dropped to keep the spool within its size cap.
+     */
+    synchronized long evicted() {
+        return evicted;
+    }
+
+    synchronized long bytes() {
+        return (long) segments.size() * segmentBytes;
+    }
+
+    @Override
+    public synchronized void close() {
+        for (Segment segment : segments) {
+            segment.buffer.force();
+        }
+        segments.clear();
+    }
+
+    private Segment oldestUnread() {
+        for (Segment segment : segments) {
+            if (segment.entries > 0) {
+                return segment;
+            }
+        }
+        return null;
+    }
+
+    private Segment newSegment() {
+        Segment last = segments.peekLast();
+        if (last != null && last.entries == 0) {
+            // fully replayed while it was the segment being written
+            segments.removeLast();
+            delete(last);
+        }
+        while (segments.size() >= maxSegments) {
+            Segment oldest = segments.removeFirst();
+            depth -= oldest.entries;
+            evicted += oldest.entries;
+            delete(oldest);
+        }
+        Path path = directory.resolve(String.format("%016d%s", nextSequence++, SUFFIX));
+        Segment segment = map(path);
+        segment.buffer.putInt(0, SEGMENT_HEADER);
+        segment.readPosition = SEGMENT_HEADER;
+        segment.writePosition = SEGMENT_HEADER;
+        segments.addLast(segment);
+        return segment;
+    }
+
+    private void open() throws IOException {
+        List<Path> paths = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            stream.forEach(paths::add);
+        }
+        paths.sort(null);
+        for (Path path : paths) {
+            String name = path.getFileName().toString();
+            nextSequence = Math.max(nextSequence, Long.parseLong(name.substring(0, name.length() - SUFFIX.length())) + 1);
+            if (Files.size(path) != segmentBytes) {
+                // written with another segment size
+                Files.delete(path);
+                continue;
+            }
+            Segment segment = map(path);
+            int readPosition = segment.buffer.getInt(0);
+            segment.readPosition = Math.max(SEGMENT_HEADER, Math.min(readPosition, segmentBytes));
+            int position = SEGMENT_HEADER;
+            while (position + ENTRY_HEADER <= segmentBytes) {
+                int length = segment.buffer.getInt(position);
+                if (length <= 0 || position + ENTRY_HEADER + length > segmentBytes) {
+                    break;
+                }
+                if (position >= segment.readPosition) {
+                    segment.entries++;
+                }
+                position += ENTRY_HEADER + length;
+            }
+            segment.writePosition = position;
+            if (segment.entries == 0) {
+                delete(segment);
+                continue;
+            }
+            depth += segment.entries;
+            segments.addLast(segment);
+        }
+        while (segments.size() > maxSegments) {
+            Segment oldest = segments.removeFirst();
+            depth -= oldest.entries;
+            evicted += oldest.entries;
+            delete(oldest);
+        }
+    }
+
+    private Segment map(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // the mapping remains valid after the channel is closed
+            return new Segment(path, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void delete(Segment segment) {
+        try {
+            Files.deleteIfExists(segment.path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class Segment {
+        private final Path path;
+        private final MappedByteBuffer buffer;
+        private int readPosition;
+        private int writePosition;
+        private int entries;
+
+        Segment(Path path, MappedByteBuffer buffer) {
+            this.path = path;
+            this.buffer = buffer;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package io.github.reugn.micrometer.aerospike;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Computes percentiles from the {@code hist} bin of a meter record or a histogram merge record.
+ * <p>
+ * The bin maps each bucket upper bound to the cumulative number of samples less than or equal to it,
+ * so the counts of several instances can be summed bucket by bucket without losing the ability
+ * to compute percentiles, see {@link AerospikeConfig#histogramMerge()}.
+ */
+public final class HistogramBuckets {
+
+    private HistogramBuckets() {
+    }
+
+    /**
+     * Estimates a percentile by linear interpolation within the bucket it falls into.
+     * Samples above the highest bucket are not counted, so the estimate is bounded by the highest bucket.
+     *
+     * @param buckets    the {@code hist} bin value, bucket upper bound to cumulative count
+     * @param percentile the percentile, between 0 and 1
+     * @return the estimated value, or NaN if there are no samples
+     */
+    public static double percentile(Map<?, ?> buckets, double percentile) {
+        if (percentile < 0 || percentile > 1) {
+            throw new IllegalArgumentException("percentile must be between 0 and 1");
+        }
+        TreeMap<Double, Double> sorted = new TreeMap<>();
+        for (Map.Entry<?, ?> bucket : buckets.entrySet()) {
+            sorted.put(((Number) bucket.getKey()).doubleValue(), ((Number) bucket.getValue()).doubleValue());
+        }
+        if (sorted.isEmpty()) {
+            return Double.NaN;
+        }
+        double total = sorted.lastEntry().getValue();
+        if (total <= 0) {
+            return Double.NaN;
+        }
+        double rank = percentile * total;
+        double lowerBound = 0;
+        double lowerCount = 0;
+        for (Map.Entry<Double, Double> bucket : sorted.entrySet()) {
+            double count = bucket.getValue();
+            if (count >= rank && count > lowerCount) {
+                double fraction = (rank - lowerCount) / (count - lowerCount);
+                return lowerBound + fraction * (bucket.getKey() - lowerBound);
+            }
+            lowerBound = bucket.getKey();
+            lowerCount = count;
+        }
+        return sorted.lastKey();
+    }
+}
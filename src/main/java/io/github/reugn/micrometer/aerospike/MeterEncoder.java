@@ -0,0 +1,558 @@
+package io.github.reugn.micrometer.aerospike;
+
+import com.aerospike.client.BatchRecord;
+import com.aerospike.client.Bin;
+import com.aerospike.client.BatchWrite;
+import com.aerospike.client.Key;
+import com.aerospike.client.Operation;
+import com.aerospike.client.Value;
+import com.aerospike.client.cdt.MapOperation;
+import com.aerospike.client.cdt.MapOrder;
+import com.aerospike.client.cdt.MapPolicy;
+import com.aerospike.client.cdt.MapWriteFlags;
+import com.aerospike.client.exp.Exp;
+import com.aerospike.client.exp.ExpOperation;
+import com.aerospike.client.exp.ExpWriteFlags;
+import com.aerospike.client.policy.BatchWritePolicy;
+import io.github.reugn.micrometer.aerospike.SampleType.Field;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.distribution.CountAtBucket;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Encodes meter samples into Aerospike batch writes.
+ * <p>
+ * The static part of a record (the type, name and tag bins) is built once per meter and cached
+ * by {@link Meter.Id} until the meter is removed, so a publish step only creates the timestamp
+ * and value bins.
+ * <p>
+ * In the {@link StorageMode#BUCKETED} mode the value bins are key-ordered maps from the step
+ * timestamp to the sample value, and the timestamp bin holds the start of the bucket.
+ * <p>
+ * With an instance id, the id is written to the {@code instance} bin and folded into the record keys,
+ * so instances publishing the same meters do not overwrite each other's records. The histogram merge,
+ * aggregate and rollup records are shared by all instances and keyed without it.
+ * <p>
+ * With a set rotation the records are written to the rotated set of the period of their timestamp,
+ * which is the bucket start in the bucketed mode, see {@link SetRotation}.
+ * <p>
+ * The records are keyed by the series id, the meter name and sorted tags, and the record timestamp,
+ * so meters of the same name and different tags, whose samples share the step timestamp, do not
+ * overwrite each other. With series keys the records are keyed by the series id and the index
+ * of their step or bucket instead.
+ * <p>
+ * With packed encoding the type, tags and values of a sample are written to a single
+ * {@code data} bin, see {@link PackedSample}; the record keeps the name and timestamp bins.
+ * <p>
+ * Percentiles and histogram bucket counts are written to the {@code pct} and {@code hist} map bins,
+ * keyed by the percentile and the bucket upper bound. With histogram merge enabled, the bucket counts
+ * are also added to a per-step record shared by all instances, see {@link HistogramBuckets}.
+ * <p>
+ * With aggregate writes enabled, the counts and totals of step meters are also added to a per-window
+ * record shared by all instances, so that fleet-wide totals are kept by the server at write time.
+ * <p>
+ * With rollup tiers, each sample is also folded into a per-series record of every tier, shared by all
+ * instances, see {@link AerospikeConfig#rollupTiers()}. The number of samples, the counts and totals
+ * are added, and the maximums raised, by the server, so a tier costs a single write per sample and
+ * the tier records never have to be read back.
+ * <p>
+ * The histogram merge, aggregate and rollup records are added to by the server, so they are written
+ * once per step of a meter. Closing the registry publishes the current step again, which then only
+ * rewrites the regular records.
+ * <p>
+ * With delta publishing enabled, samples equal to the last written ones and step samples
+ * with a zero count are skipped until the heartbeat interval elapses.
+ */
+final class MeterEncoder {
+
+    static final String DATA_BIN = "data";
+    static final String TAG_BIN_PREFIX = "__";
+    static final String INSTANCE_BIN = "instance";
+
+    static final String PERCENTILES_BIN = "pct";
+    static final String HISTOGRAM_BIN = "hist";
+
+    private static final MapPolicy ORDERED_MAP_POLICY = new MapPolicy(MapOrder.KEY_ORDERED, MapWriteFlags.DEFAULT);
+
+    private final String namespace;
+    private final String setName;
+    private final RotatedSets rotatedSets;
+    private final BatchWritePolicy writePolicy;
+    private final boolean bucketed;
+    private final long bucketMillis;
+    private final boolean packed;
+    private final boolean seriesKeys;
+    @Nullable
+    private final String instanceId;
+    private final boolean deltaPublishing;
+    private final long heartbeatMillis;
+    private final boolean histogramMerge;
+    private final String mergeSetName;
+    private final long stepMillis;
+    private final long slotMillis;
+    private final boolean aggregateWrites;
+    private final String aggregateSetName;
+    private final long aggregateWindowMillis;
+    private final List<Tier> rollupTiers;
+    private final Function<Meter.Id, String> conventionName;
+    private final Function<Meter.Id, List<Tag>> conventionTags;
+
+    private final ConcurrentMap<Meter.Id, Entry> entries = new ConcurrentHashMap<>();
+
+    // only accessed by the publishing thread
+    private final List<BatchRecord> sharedRecords = new ArrayList<>();
+
+    MeterEncoder(AerospikeConfig config,
+                 Function<Meter.Id, String> conventionName,
+                 Function<Meter.Id, List<Tag>> conventionTags) {
+        this.namespace = config.namespace();
+        this.setName = config.setName();
+        this.rotatedSets = new RotatedSets(config);
+        this.writePolicy = config.batchWritePolicy();
+        this.bucketed = config.storageMode() == StorageMode.BUCKETED;
+        this.bucketMillis = config.bucketDuration().toMillis();
+        if (bucketed && bucketMillis <= 0) {
+            throw new IllegalArgumentException("bucket duration must be positive");
+        }
+        this.packed = config.packedEncoding();
+        this.seriesKeys = config.seriesKeys();
+        this.instanceId = instanceId(config);
+        this.deltaPublishing = config.deltaPublishing();
+        this.heartbeatMillis = config.heartbeatInterval().toMillis();
+        this.histogramMerge = config.histogramMerge();
+        this.mergeSetName = config.mergeSetName();
+        this.stepMillis = config.step().toMillis();
+        this.slotMillis = bucketed ? bucketMillis : stepMillis;
+        this.aggregateWrites = config.aggregateWrites();
+        this.aggregateSetName = config.aggregateSetName();
+        this.aggregateWindowMillis = config.aggregateWindow().toMillis();
+        if (aggregateWrites && aggregateWindowMillis <= 0) {
+            throw new IllegalArgumentException("aggregate window must be positive");
+        }
+        this.rollupTiers = new ArrayList<>();
+        for (RollupTier tier : config.rollupTiers()) {
+            rollupTiers.add(new Tier(tier, setName, writePolicy));
+        }
+        this.conventionName = conventionName;
+        this.conventionTags = conventionTags;
+    }
+
+    Optional<BatchRecord> encode(Meter.Id id, SampleType type, long timestamp, double... values) {
+        return encode(id, type, timestamp, type.fields(), values);
+    }
+
+    Optional<BatchRecord> encode(Meter.Id id, SampleType type, long timestamp, Field[] fields, double[] values) {
+        return encode(id, type, timestamp, fields, values, null, null);
+    }
+
+    /**
+     * Encodes a timer or distribution summary sample along with its percentiles and histogram buckets.
+     *
+     * @param unit the base time unit of a timer, null for a distribution summary
+     */
+    Optional<BatchRecord> encode(Meter.Id id, SampleType type, long timestamp, HistogramSnapshot histogram,
+                                 @Nullable TimeUnit unit, double... values) {
+        return encode(id, type, timestamp, type.fields(), values, histogram, unit);
+    }
+
+    private Optional<BatchRecord> encode(Meter.Id id, SampleType type, long timestamp, Field[] fields,
+                                         double[] values, @Nullable HistogramSnapshot histogram,
+                                         @Nullable TimeUnit unit) {
+        Entry entry = entry(id, type);
+        if (deltaPublishing && !entry.changed(type, timestamp, values)) {
+            return Optional.empty();
+        }
+        boolean newStep = entry.advance(timestamp);
+        if (aggregateWrites && newStep && type.isStepBased() && values.length > 0 && values[0] > 0) {
+            sharedRecords.add(aggregateRecord(entry, timestamp, fields, values));
+        }
+        Map<Value, Value> percentiles = histogram == null ? null : percentiles(histogram, unit);
+        Map<Value, Value> buckets = histogram == null ? null : buckets(histogram, unit);
+        long recordTimestamp = bucketed ? timestamp - Math.floorMod(timestamp, bucketMillis) : timestamp;
+        int valueOps = (packed ? 1 : values.length)
+                + (percentiles == null ? 0 : 1)
+                + (buckets == null ? 0 : 1);
+        Operation[] ops = new Operation[entry.ops.length + 1 + valueOps];
+        System.arraycopy(entry.ops, 0, ops, 0, entry.ops.length);
+        int i = entry.ops.length;
+        ops[i++] = new Operation(Operation.Type.WRITE, "ts", Value.get(recordTimestamp));
+        Value ts = Value.get(timestamp);
+        if (packed) {
+            Value data = Value.get(PackedSample.pack(entry.packedHeader, type,
+                    timestamp - recordTimestamp, fields, values));
+            ops[i++] = bucketed
+                    ? MapOperation.put(ORDERED_MAP_POLICY, DATA_BIN, ts, data)
+                    : new Operation(Operation.Type.WRITE, DATA_BIN, data);
+        } else if (bucketed) {
+            for (int j = 0; j < values.length; j++) {
+                ops[i++] = MapOperation.put(ORDERED_MAP_POLICY, fields[j].name(), ts, fields[j].value(values[j]));
+            }
+        } else {
+            for (int j = 0; j < values.length; j++) {
+                ops[i++] = new Operation(Operation.Type.WRITE, fields[j].name(), fields[j].value(values[j]));
+            }
+        }
+        if (percentiles != null) {
+            ops[i++] = mapOp(PERCENTILES_BIN, ts, percentiles);
+        }
+        if (buckets != null) {
+            ops[i] = mapOp(HISTOGRAM_BIN, ts, buckets);
+            if (histogramMerge && newStep) {
+                sharedRecords.add(mergeRecord(entry, timestamp, histogram, unit, buckets));
+            }
+        }
+        if (newStep && (!type.isStepBased() || values.length > 0 && values[0] > 0)) {
+            for (Tier tier : rollupTiers) {
+                sharedRecords.add(rollupRecord(tier, entry, type, timestamp, fields, values, buckets));
+            }
+        }
+        Key key = seriesKeys
+                ? new Key(namespace, rotatedSets.setName(recordTimestamp),
+                seriesKey(entry.keySeriesId, Math.floorDiv(recordTimestamp, slotMillis)))
+                : getKey(entry.keySeriesId, recordTimestamp);
+        return Optional.of(new BatchWrite(writePolicy, key, ops));
+    }
+
+    /**
+     * Moves the histogram merge, aggregate and rollup records of the encoded samples to the given list.
+     * Called by the publishing thread after encoding a batch.
+     */
+    void drainSharedRecords(List<BatchRecord> records) {
+        records.addAll(sharedRecords);
+        sharedRecords.clear();
+    }
+
+    private Operation mapOp(String binName, Value timestamp, Map<Value, Value> map) {
+        return bucketed
+                ? MapOperation.put(ORDERED_MAP_POLICY, binName, timestamp, new Value.MapValue(map))
+                : new Operation(Operation.Type.WRITE, binName, new Value.MapValue(map));
+    }
+
+    /**
+     * Adds the bucket counts, the sample count and the total of a step to the merge record shared by
+     * all instances. The histogram of a meter may cover a longer window than the step, so the count
+     * is taken from the highest bucket, which makes it match the merged buckets. The total is converted
+     * to the base time unit, like the buckets.
+     */
+    private BatchRecord mergeRecord(Entry entry, long timestamp, HistogramSnapshot histogram,
+                                    @Nullable TimeUnit unit, Map<Value, Value> buckets) {
+        long step = timestamp - Math.floorMod(timestamp, stepMillis);
+        Operation[] ops = new Operation[entry.mergeOps.length + 3 + buckets.size()];
+        System.arraycopy(entry.mergeOps, 0, ops, 0, entry.mergeOps.length);
+        int i = entry.mergeOps.length;
+        ops[i++] = new Operation(Operation.Type.WRITE, "ts", Value.get(step));
+        long count = 0;
+        for (Value bucketCount : buckets.values()) {
+            count = Math.max(count, bucketCount.toLong());
+        }
+        ops[i++] = Operation.add(new Bin("count", count));
+        ops[i++] = Operation.add(new Bin("sum", unit == null ? histogram.total() : histogram.total(unit)));
+        for (Map.Entry<Value, Value> bucket : buckets.entrySet()) {
+            ops[i++] = MapOperation.increment(ORDERED_MAP_POLICY, HISTOGRAM_BIN, bucket.getKey(), bucket.getValue());
+        }
+        return new BatchWrite(writePolicy, new Key(namespace, mergeSetName, entry.seriesId + "_" + step), ops);
+    }
+
+    /**
+     * Adds the step count and totals to the aggregate record of the window, and raises its maximum.
+     * The average is left out as it can be derived from the sum and the count.
+     */
+    private BatchRecord aggregateRecord(Entry entry, long timestamp, Field[] fields, double[] values) {
+        long window = timestamp - Math.floorMod(timestamp, aggregateWindowMillis);
+        List<Operation> ops = new ArrayList<>(entry.mergeOps.length + 1 + values.length);
+        ops.addAll(Arrays.asList(entry.mergeOps));
+        ops.add(new Operation(Operation.Type.WRITE, "ts", Value.get(window)));
+        for (int i = 0; i < values.length; i++) {
+            String name = fields[i].name();
+            if ("avg".equals(name)) {
+                continue;
+            }
+            if ("max".equals(name)) {
+                ops.add(maxOp(name, values[i]));
+            } else {
+                ops.add(Operation.add(fields[i].isIntegral()
+                        ? new Bin(name, (long) values[i])
+                        : new Bin(name, values[i])));
+            }
+        }
+        return new BatchWrite(writePolicy, new Key(namespace, aggregateSetName, entry.seriesId + "_" + window),
+                ops.toArray(new Operation[0]));
+    }
+
+    /**
+     * Folds a sample into the tier record of its series, shared by all instances. The fields of step meters are added, except
+     * for the maximum, which is raised, and the average. The fields of other meters are added to the
+     * field bin, to be divided by the {@code samples} count, and raised in the {@code <field>_max} bin.
+     * <p>
+     * The histogram of a meter covers a rolling window longer than the step, so consecutive snapshots
+     * count the same recordings. The step count is spread over the buckets in the proportions of the
+     * snapshot instead, which keeps the tier buckets in line with the added {@code count}.
+     */
+    private BatchRecord rollupRecord(Tier tier, Entry entry, SampleType type, long timestamp, Field[] fields,
+                                     double[] values, @Nullable Map<Value, Value> buckets) {
+        long slot = timestamp - Math.floorMod(timestamp, tier.resolutionMillis);
+        List<Operation> ops = new ArrayList<>(entry.mergeOps.length + 3 + values.length * 2
+                + (buckets == null ? 0 : buckets.size()));
+        ops.addAll(Arrays.asList(entry.mergeOps));
+        ops.add(new Operation(Operation.Type.WRITE, "ts", Value.get(slot)));
+        ops.add(Operation.add(new Bin("samples", 1L)));
+        boolean stepBased = type.isStepBased();
+        for (int i = 0; i < values.length; i++) {
+            String name = fields[i].name();
+            if (stepBased && "avg".equals(name)) {
+                continue;
+            }
+            if (stepBased && "max".equals(name)) {
+                ops.add(maxOp(name, values[i]));
+                continue;
+            }
+            ops.add(Operation.add(fields[i].isIntegral()
+                    ? new Bin(name, (long) values[i])
+                    : new Bin(name, values[i])));
+            if (!stepBased) {
+                ops.add(maxOp(name + "_max", values[i]));
+            }
+        }
+        if (buckets != null) {
+            addStepBuckets(ops, buckets, (long) values[0]);
+        }
+        return new BatchWrite(tier.writePolicy, new Key(namespace, tier.setName, entry.seriesId + "_" + slot),
+                ops.toArray(new Operation[0]));
+    }
+
+    /**
+     * Adds the cumulative bucket counts of a step with the given count, scaled from the bucket counts
+     * of the histogram window. The highest bucket is incremented by the step count.
+     */
+    private static void addStepBuckets(List<Operation> ops, Map<Value, Value> buckets, long count) {
+        long windowCount = 0;
+        for (Value bucketCount : buckets.values()) {
+            windowCount = Math.max(windowCount, bucketCount.toLong());
+        }
+        if (count <= 0 || windowCount == 0) {
+            return;
+        }
+        for (Map.Entry<Value, Value> bucket : buckets.entrySet()) {
+            long stepCount = Math.round((double) bucket.getValue().toLong() * count / windowCount);
+            ops.add(MapOperation.increment(ORDERED_MAP_POLICY, HISTOGRAM_BIN, bucket.getKey(), Value.get(stepCount)));
+        }
+    }
+
+    /**
+     * Raises the value of a float bin to the given value, creating the bin if it does not exist.
+     */
+    private static Operation maxOp(String binName, double value) {
+        Exp max = Exp.val(value);
+        return ExpOperation.write(binName, Exp.build(Exp.cond(
+                Exp.binExists(binName), Exp.max(Exp.floatBin(binName), max),
+                max)), ExpWriteFlags.DEFAULT);
+    }
+
+    @Nullable
+    private static Map<Value, Value> percentiles(HistogramSnapshot histogram, @Nullable TimeUnit unit) {
+        ValueAtPercentile[] percentiles = histogram.percentileValues();
+        if (percentiles.length == 0) {
+            return null;
+        }
+        Map<Value, Value> map = new LinkedHashMap<>(percentiles.length * 2);
+        for (ValueAtPercentile percentile : percentiles) {
+            double value = unit == null ? percentile.value() : percentile.value(unit);
+            if (Double.isFinite(value)) {
+                map.put(Value.get(percentile.percentile()), Value.get(value));
+            }
+        }
+        return map.isEmpty() ? null : map;
+    }
+
+    @Nullable
+    private static Map<Value, Value> buckets(HistogramSnapshot histogram, @Nullable TimeUnit unit) {
+        CountAtBucket[] counts = histogram.histogramCounts();
+        if (counts.length == 0) {
+            return null;
+        }
+        Map<Value, Value> map = new LinkedHashMap<>(counts.length * 2);
+        for (CountAtBucket count : counts) {
+            double bucket = unit == null ? count.bucket() : count.bucket(unit);
+            map.put(Value.get(bucket), Value.get((long) count.count()));
+        }
+        return map;
+    }
+
+    /**
+     * Drops the cached static part of a removed meter.
+     */
+    void remove(Meter.Id id) {
+        entries.remove(id);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    Key getKey(String seriesId, long timestamp) {
+        return new Key(namespace, rotatedSets.setName(timestamp), seriesId + "_" + timestamp);
+    }
+
+    /**
+     * Returns the configured instance id, or null if the instance id is not set or empty.
+     */
+    @Nullable
+    static String instanceId(AerospikeConfig config) {
+        String instanceId = config.instanceId();
+        return instanceId == null || instanceId.isEmpty() ? null : instanceId;
+    }
+
+    /**
+     * Folds the instance id into the meter name or series id part of a record key.
+     */
+    static String instanceKey(String id, @Nullable String instanceId) {
+        return instanceId == null ? id : id + "@" + instanceId;
+    }
+
+    /**
+     * Returns the user key of a series record, see {@link AerospikeConfig#seriesKeys()}.
+     *
+     * @param slot the index of the step or bucket of the record
+     */
+    static String seriesKey(String seriesId, long slot) {
+        return seriesId + "_" + slot;
+    }
+
+    /**
+     * Returns the id of a series, such as {@code http_requests{method=GET,uri=/api}}, with the tags sorted by key.
+     */
+    static String seriesId(String name, List<Tag> tags) {
+        if (tags.isEmpty()) {
+            return name;
+        }
+        StringBuilder id = new StringBuilder(name).append('{');
+        for (int i = 0; i < tags.size(); i++) {
+            if (i > 0) {
+                id.append(',');
+            }
+            id.append(tags.get(i).getKey()).append('=').append(tags.get(i).getValue());
+        }
+        return id.append('}').toString();
+    }
+
+    private Entry entry(Meter.Id id, SampleType type) {
+        Entry entry = entries.get(id);
+        if (entry == null) {
+            entry = entries.computeIfAbsent(id, key -> new Entry(key, type));
+        }
+        return entry;
+    }
+
+    /**
+     * A rollup tier with the set and write policy of its records.
+     */
+    private static final class Tier {
+        private final long resolutionMillis;
+        private final String setName;
+        private final BatchWritePolicy writePolicy;
+
+        Tier(RollupTier tier, String baseSetName, BatchWritePolicy baseWritePolicy) {
+            this.resolutionMillis = tier.getResolution().toMillis();
+            this.setName = tier.setName(baseSetName);
+            this.writePolicy = new BatchWritePolicy(baseWritePolicy);
+            writePolicy.expiration = tier.expiration();
+        }
+    }
+
+    /**
+     * The static part of the records of a single meter.
+     */
+    private final class Entry {
+        private final Operation[] ops;
+        private final byte[] packedHeader;
+        private final String seriesId;
+        private final String keySeriesId;
+        private final Operation[] mergeOps;
+
+        // only accessed by the publishing thread
+        private double[] lastValues;
+        private long lastWritten;
+        private long lastStep = Long.MIN_VALUE;
+
+        Entry(Meter.Id id, SampleType type) {
+            String name = conventionName.apply(id);
+            List<Tag> tags = conventionTags.apply(id);
+            this.seriesId = seriesId(name, tags);
+            this.mergeOps = new Operation[2 + tags.size()];
+            mergeOps[0] = new Operation(Operation.Type.WRITE, "type", Value.get(type.typeName()));
+            mergeOps[1] = new Operation(Operation.Type.WRITE, "name", Value.get(name));
+            for (int i = 0; i < tags.size(); i++) {
+                Tag tag = tags.get(i);
+                mergeOps[2 + i] = new Operation(Operation.Type.WRITE, TAG_BIN_PREFIX + tag.getKey(),
+                        Value.get(tag.getValue()));
+            }
+            List<Operation> recordOps = new ArrayList<>(3 + tags.size());
+            if (packed) {
+                this.packedHeader = PackedSample.header(type, tags);
+                recordOps.add(new Operation(Operation.Type.WRITE, "name", Value.get(name)));
+            } else {
+                this.packedHeader = null;
+                recordOps.add(new Operation(Operation.Type.WRITE, "type", Value.get(type.typeName())));
+                // custom meters are written without the name bin
+                if (type != SampleType.CUSTOM) {
+                    recordOps.add(new Operation(Operation.Type.WRITE, "name", Value.get(name)));
+                }
+                for (Tag tag : tags) {
+                    recordOps.add(new Operation(Operation.Type.WRITE, TAG_BIN_PREFIX + tag.getKey(),
+                            Value.get(tag.getValue())));
+                }
+            }
+            if (instanceId != null) {
+                recordOps.add(new Operation(Operation.Type.WRITE, INSTANCE_BIN, Value.get(instanceId)));
+            }
+            this.ops = recordOps.toArray(new Operation[0]);
+            this.keySeriesId = instanceKey(seriesId, instanceId);
+        }
+
+        /**
+         * Checks whether the timestamp is past the last encoded step and remembers it if so.
+         */
+        boolean advance(long timestamp) {
+            if (timestamp <= lastStep) {
+                return false;
+            }
+            lastStep = timestamp;
+            return true;
+        }
+
+        /**
+         * Checks whether the sample has to be written and remembers it if so.
+         */
+        boolean changed(SampleType type, long timestamp, double[] values) {
+            if (lastValues != null && timestamp - lastWritten < heartbeatMillis) {
+                boolean idle = type.isStepBased()
+                        ? values.length > 0 && values[0] == 0
+                        : Arrays.equals(lastValues, values);
+                if (idle) {
+                    return false;
+                }
+            }
+            if (lastValues == null || lastValues.length != values.length) {
+                lastValues = values.clone();
+            } else {
+                System.arraycopy(values, 0, lastValues, 0, values.length);
+            }
+            lastWritten = timestamp;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package io.github.reugn.micrometer.aerospike;
+
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * A meter sample read back by {@link AerospikeMetricsReader}, independent of the storage mode
+ * and encoding it was written with.
+ */
+public final class MetricSample {
+
+    private final String name;
+    @Nullable
+    private final String instance;
+    private final String type;
+    private final long timestamp;
+    private final Map<String, String> tags;
+    private final Map<String, Double> values;
+    private final Map<Double, Double> percentiles;
+    private final Map<Double, Long> histogram;
+
+    MetricSample(String name, @Nullable String instance, String type, long timestamp, Map<String, String> tags,
+                 Map<String, Double> values, Map<Double, Double> percentiles, Map<Double, Long> histogram) {
+        this.name = name;
+        this.instance = instance;
+        this.type = type;
+        this.timestamp = timestamp;
+        this.tags = Collections.unmodifiableMap(tags);
+        this.values = Collections.unmodifiableMap(values);
+        this.percentiles = Collections.unmodifiableMap(percentiles);
+        this.histogram = Collections.unmodifiableMap(histogram);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the id of the instance that published the sample, null if it was published without one.
+     *
+     * @see AerospikeConfig#instanceId()
+     */
+    @Nullable
+    public String getInstance() {
+        return instance;
+    }
+
+    /**
+     * Returns the meter type, as written to the {@code type} bin, such as {@code Timer}.
+     */
+    public String getType() {
+        return type;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public Map<String, String> getTags() {
+        return tags;
+    }
+
+    /**
+     * Returns the sample values by field name, such as {@code count} or {@code max}.
+     */
+    public Map<String, Double> getValues() {
+        return values;
+    }
+
+    /**
+     * Returns the published percentile values by percentile, empty if none were published.
+     */
+    public Map<Double, Double> getPercentiles() {
+        return percentiles;
+    }
+
+    /**
+     * Returns the cumulative histogram bucket counts by bucket upper bound, empty if none were published.
+     *
+     * @see HistogramBuckets#percentile(Map, double)
+     */
+    public Map<Double, Long> getHistogram() {
+        return histogram;
+    }
+
+    @Override
+    public String toString() {
+        return "MetricSample{name=" + name + ", instance=" + instance + ", type=" + type + ", timestamp=" + timestamp
+                + ", tags=" + tags + ", values=" + values + '}';
+    }
+}
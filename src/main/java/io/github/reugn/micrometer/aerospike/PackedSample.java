@@ -0,0 +1,332 @@
+package io.github.reugn.micrometer.aerospike;
+
+import io.github.reugn.micrometer.aerospike.SampleType.Field;
+import io.micrometer.core.instrument.Statistic;
+import io.micrometer.core.instrument.Tag;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A meter sample stored in the packed {@code data} bin, see {@link AerospikeConfig#packedEncoding()}.
+ * <p>
+ * The blob layout is:
+ * <pre>
+ * version    byte
+ * type       byte                         the sample type code
+ * tag count  varint
+ * tags       (varint length, UTF-8 key, varint length, UTF-8 value)...
+ * ts delta   zigzag varint                the timestamp minus the base timestamp
+ * field count varint
+ * fields     (varint header, value)...
+ * </pre>
+ * The field header is the field id shifted left by one, with the low bit set when the value is
+ * an integer written as a zigzag varint, and clear when it is an 8-byte IEEE 754 double.
+ * The field id is the index of the field in its type layout, or the statistic code for custom meters.
+ * The type and statistic codes are fixed, independent of the enum order.
+ */
+public final class PackedSample {
+
+    static final byte VERSION = 1;
+
+    /**
+     * The sample types by code. The codes are stored in the records, so new types are appended.
+     */
+    private static final SampleType[] TYPES = {
+            SampleType.GAUGE,
+            SampleType.COUNTER,
+            SampleType.TIMER,
+            SampleType.DISTRIBUTION_SUMMARY,
+            SampleType.LONG_TASK_TIMER,
+            SampleType.TIME_GAUGE,
+            SampleType.FUNCTION_COUNTER,
+            SampleType.FUNCTION_TIMER,
+            SampleType.CUSTOM
+    };
+
+    /**
+     * The statistics of the custom meters by code. The codes are stored in the records, so new
+     * statistics are appended. A statistic missing here is written as {@link Statistic#UNKNOWN}.
+     */
+    private static final Statistic[] STATISTICS = {
+            Statistic.TOTAL,
+            Statistic.TOTAL_TIME,
+            Statistic.COUNT,
+            Statistic.MAX,
+            Statistic.VALUE,
+            Statistic.UNKNOWN,
+            Statistic.ACTIVE_TASKS,
+            Statistic.DURATION
+    };
+
+    private static final Map<SampleType, Integer> TYPE_CODES = codes(SampleType.class, TYPES);
+    private static final Map<Statistic, Integer> STATISTIC_CODES = codes(Statistic.class, STATISTICS);
+
+    private static final long MAX_EXACT = 1L << 53;
+
+    private final String type;
+    private final long timestamp;
+    private final Map<String, String> tags;
+    private final Map<String, Double> values;
+
+    private PackedSample(String type, long timestamp, Map<String, String> tags, Map<String, Double> values) {
+        this.type = type;
+        this.timestamp = timestamp;
+        this.tags = Collections.unmodifiableMap(tags);
+        this.values = Collections.unmodifiableMap(values);
+    }
+
+    /**
+     * Returns the meter type, as written to the {@code type} bin of the unpacked layout.
+     */
+    public String getType() {
+        return type;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public Map<String, String> getTags() {
+        return tags;
+    }
+
+    /**
+     * Returns the sample values by field name, such as {@code count} or {@code max}.
+     */
+    public Map<String, Double> getValues() {
+        return values;
+    }
+
+    /**
+     * Decodes a packed sample.
+     *
+     * @param data          the {@code data} bin value
+     * @param baseTimestamp the {@code ts} bin value of the record
+     * @return the decoded sample
+     * @throws IllegalArgumentException if the blob is malformed or of an unknown version
+     */
+    public static PackedSample decode(byte[] data, long baseTimestamp) {
+        Reader reader = new Reader(data);
+        try {
+            int version = reader.readByte();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported packed sample version " + version);
+            }
+            SampleType type = decode(TYPES, reader.readByte(), "sample type");
+            int tagCount = reader.readCount();
+            Map<String, String> tags = new LinkedHashMap<>(tagCount * 2);
+            for (int i = 0; i < tagCount; i++) {
+                tags.put(reader.readString(), reader.readString());
+            }
+            long timestamp = baseTimestamp + reader.readSignedVarLong();
+            int fieldCount = reader.readCount();
+            Field[] fields = type.fields();
+            Map<String, Double> values = new LinkedHashMap<>(fieldCount * 2);
+            for (int i = 0; i < fieldCount; i++) {
+                int header = reader.readCount();
+                int id = header >>> 1;
+                String name = type == SampleType.CUSTOM
+                        ? decode(STATISTICS, id, "statistic").getTagValueRepresentation()
+                        : fields[id].name();
+                double value = (header & 1) != 0 ? reader.readSignedVarLong() : reader.readDouble();
+                values.put(name, value);
+            }
+            return new PackedSample(type.typeName(), timestamp, tags, values);
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Malformed packed sample", e);
+        }
+    }
+
+    /**
+     * Encodes the static part of the samples of a meter: the version, type and tags.
+     */
+    static byte[] header(SampleType type, List<Tag> tags) {
+        Writer writer = new Writer(16 + tags.size() * 16);
+        writer.writeByte(VERSION);
+        writer.writeByte(typeCode(type));
+        writer.writeVarLong(tags.size());
+        for (Tag tag : tags) {
+            writer.writeString(tag.getKey());
+            writer.writeString(tag.getValue());
+        }
+        return writer.toByteArray();
+    }
+
+    /**
+     * Encodes a sample, appending the timestamp and values to the cached header.
+     */
+    static byte[] pack(byte[] header, SampleType type, long timestampDelta, Field[] fields, double[] values) {
+        Writer writer = new Writer(header.length + 2 + values.length * 10);
+        writer.writeBytes(header);
+        writer.writeVarLong(zigzag(timestampDelta));
+        writer.writeVarLong(values.length);
+        for (int i = 0; i < values.length; i++) {
+            int id = type == SampleType.CUSTOM ? statisticCode(fields[i].statistic()) : i;
+            double value = values[i];
+            long integral = (long) value;
+            if (integral == value && Math.abs(integral) <= MAX_EXACT) {
+                writer.writeVarLong((id << 1) | 1);
+                writer.writeVarLong(zigzag(integral));
+            } else {
+                writer.writeVarLong(id << 1);
+                writer.writeLong(Double.doubleToRawLongBits(value));
+            }
+        }
+        return writer.toByteArray();
+    }
+
+    static int typeCode(SampleType type) {
+        Integer code = TYPE_CODES.get(type);
+        if (code == null) {
+            throw new IllegalArgumentException("No packed sample code for the type " + type);
+        }
+        return code;
+    }
+
+    static int statisticCode(Statistic statistic) {
+        Integer code = STATISTIC_CODES.get(statistic);
+        return code != null ? code : STATISTIC_CODES.get(Statistic.UNKNOWN);
+    }
+
+    private static <E extends Enum<E>> Map<E, Integer> codes(Class<E> type, E[] values) {
+        Map<E, Integer> codes = new EnumMap<>(type);
+        for (int i = 0; i < values.length; i++) {
+            codes.put(values[i], i);
+        }
+        return codes;
+    }
+
+    private static <E> E decode(E[] values, int code, String kind) {
+        if (code >= values.length) {
+            throw new IllegalArgumentException("Unknown packed " + kind + " code " + code);
+        }
+        return values[code];
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    @Override
+    public String toString() {
+        return "PackedSample{type=" + type + ", timestamp=" + timestamp + ", tags=" + tags + ", values=" + values + '}';
+    }
+
+    private static final class Writer {
+        private byte[] buffer;
+        private int position;
+
+        Writer(int capacity) {
+            this.buffer = new byte[capacity];
+        }
+
+        void writeByte(int value) {
+            ensure(1);
+            buffer[position++] = (byte) value;
+        }
+
+        void writeBytes(byte[] bytes) {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        void writeLong(long value) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[position++] = (byte) (value >>> shift);
+            }
+        }
+
+        void writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length);
+            writeBytes(bytes);
+        }
+
+        byte[] toByteArray() {
+            return position == buffer.length ? buffer : Arrays.copyOf(buffer, position);
+        }
+
+        private void ensure(int bytes) {
+            if (position + bytes > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + bytes));
+            }
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] buffer;
+        private int position;
+
+        Reader(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        int readByte() {
+            return buffer[position++] & 0xFF;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = buffer[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        long readSignedVarLong() {
+            long value = readVarLong();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        int readCount() {
+            long value = readVarLong();
+            if (value > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Malformed length " + value);
+            }
+            return (int) value;
+        }
+
+        long readLong() {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | (buffer[position++] & 0xFF);
+            }
+            return value;
+        }
+
+        double readDouble() {
+            return Double.longBitsToDouble(readLong());
+        }
+
+        String readString() {
+            int length = readCount();
+            if (position + length > buffer.length) {
+                throw new IllegalArgumentException("Malformed string length " + length);
+            }
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package io.github.reugn.micrometer.aerospike;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A downsampling tier: the time span folded into a single rollup record and how long the records are kept.
+ *
+ * @see AerospikeConfig#rollupTiers()
+ */
+public final class RollupTier {
+
+    private final Duration resolution;
+    private final Duration retention;
+
+    /**
+     * @param resolution the time span of a rollup record
+     * @param retention  the expiration of the rollup records, zero for the namespace default
+     */
+    public RollupTier(Duration resolution, Duration retention) {
+        if (resolution.toMillis() <= 0) {
+            throw new IllegalArgumentException("rollup resolution must be positive");
+        }
+        if (retention.isNegative()) {
+            throw new IllegalArgumentException("rollup retention must not be negative");
+        }
+        this.resolution = resolution;
+        this.retention = retention;
+    }
+
+    /**
+     * Returns the 1-minute, 1-hour and 1-day tiers, kept for 7 days, 90 days and 2 years.
+     */
+    public static List<RollupTier> defaults() {
+        return Collections.unmodifiableList(Arrays.asList(
+                new RollupTier(Duration.ofMinutes(1), Duration.ofDays(7)),
+                new RollupTier(Duration.ofHours(1), Duration.ofDays(90)),
+                new RollupTier(Duration.ofDays(1), Duration.ofDays(730))));
+    }
+
+    public Duration getResolution() {
+        return resolution;
+    }
+
+    public Duration getRetention() {
+        return retention;
+    }
+
+    /**
+     * Returns the set of the tier's records, the base set name followed by the resolution,
+     * such as {@code metrics_1h}.
+     */
+    public String setName(String baseSetName) {
+        return baseSetName + "_" + label();
+    }
+
+    /**
+     * Returns the record expiration in seconds, as set on the write policy.
+     */
+    int expiration() {
+        if (retention.isZero()) {
+            return 0;
+        }
+        return (int) Math.max(1, Math.min(retention.getSeconds(), Integer.MAX_VALUE));
+    }
+
+    private String label() {
+        long millis = resolution.toMillis();
+        if (millis % 86_400_000 == 0) {
+            return millis / 86_400_000 + "d";
+        }
+        if (millis % 3_600_000 == 0) {
+            return millis / 3_600_000 + "h";
+        }
+        if (millis % 60_000 == 0) {
+            return millis / 60_000 + "m";
+        }
+        if (millis % 1000 == 0) {
+            return millis / 1000 + "s";
+        }
+        return millis + "ms";
+    }
+
+    @Override
+    public String toString() {
+        return "RollupTier{resolution=" + resolution + ", retention=" + retention + '}';
+    }
+}
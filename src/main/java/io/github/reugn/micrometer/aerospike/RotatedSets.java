@@ -0,0 +1,110 @@
+package io.github.reugn.micrometer.aerospike;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Maps the record timestamps to the rotated sets of a base set.
+ * <p>
+ * The periods cycle through a fixed number of sets, named after the base set and the slot of the
+ * period, such as {@code micrometer_3}, as truncating a set does not free its name and a namespace
+ * holds a limited number of set names. There is a slot for each period of the retention, one for the
+ * current period and a spare one, so a slot is truncated at least a period before it is written again.
+ *
+ * @see AerospikeConfig#setRotation()
+ */
+final class RotatedSets {
+
+    private final String baseSetName;
+    private final SetRotation rotation;
+    private final long periodMillis;
+    private final int slots;
+
+    // the set of the last looked up period, replaced as a whole
+    private volatile Period last;
+
+    RotatedSets(AerospikeConfig config) {
+        this.baseSetName = config.setName();
+        this.rotation = config.setRotation();
+        if (rotation == SetRotation.NONE) {
+            this.periodMillis = 0;
+            this.slots = 1;
+            return;
+        }
+        long retentionMillis = config.setRetention().toMillis();
+        if (retentionMillis <= 0) {
+            throw new IllegalArgumentException("set rotation requires a positive set retention");
+        }
+        this.periodMillis = rotation.periodMillis();
+        long slots = (retentionMillis + periodMillis - 1) / periodMillis + 2;
+        if (slots > SetRotation.MAX_SETS) {
+            throw new IllegalArgumentException("set retention spans more than " + SetRotation.MAX_SETS + " sets");
+        }
+        this.slots = (int) slots;
+    }
+
+    boolean isRotating() {
+        return rotation != SetRotation.NONE;
+    }
+
+    int slots() {
+        return slots;
+    }
+
+    /**
+     * Returns the index of the period of a timestamp, counted from the epoch.
+     */
+    long period(long timestamp) {
+        return Math.floorDiv(timestamp, periodMillis);
+    }
+
+    /**
+     * Returns the set of the records of the given timestamp.
+     */
+    String setName(long timestamp) {
+        if (!isRotating()) {
+            return baseSetName;
+        }
+        long period = period(timestamp);
+        Period last = this.last;
+        if (last == null || last.period != period) {
+            last = new Period(period, periodSetName(period));
+            this.last = last;
+        }
+        return last.setName;
+    }
+
+    /**
+     * Returns the sets of the records of a time range, oldest first.
+     *
+     * @param from the start of the time range, inclusive
+     * @param to   the end of the time range, exclusive
+     */
+    List<String> setNames(long from, long to) {
+        if (!isRotating()) {
+            return Collections.singletonList(baseSetName);
+        }
+        Set<String> setNames = new LinkedHashSet<>();
+        for (long period = period(from); period <= period(to - 1) && setNames.size() < slots; period++) {
+            setNames.add(periodSetName(period));
+        }
+        return new ArrayList<>(setNames);
+    }
+
+    String periodSetName(long period) {
+        return baseSetName + "_" + Math.floorMod(period, slots);
+    }
+
+    private static final class Period {
+        private final long period;
+        private final String setName;
+
+        Period(long period, String setName) {
+            this.period = period;
+            this.setName = setName;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package io.github.reugn.micrometer.aerospike;
+
+import com.aerospike.client.Value;
+import io.micrometer.core.instrument.Statistic;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The record layout of each meter type: the {@code type} bin value and the value bins.
+ */
+enum SampleType {
+
+    GAUGE("Gauge", Field.of("value")),
+    COUNTER("Counter", Field.of("count")),
+    TIMER("Timer", Field.integral("count"), Field.of("max"), Field.of("avg"), Field.of("sum")),
+    DISTRIBUTION_SUMMARY("DistributionSummary",
+            Field.integral("count"), Field.of("max"), Field.of("avg"), Field.of("sum")),
+    LONG_TASK_TIMER("LongTaskTimer", Field.integral("activeTasks"), Field.of("duration")),
+    TIME_GAUGE("TimeGauge", Field.of("value")),
+    FUNCTION_COUNTER("FunctionCounter", Field.of("count")),
+    FUNCTION_TIMER("FunctionTimer", Field.of("count"), Field.of("avg"), Field.of("sum")),
+    CUSTOM("Custom");
+
+    private final String typeName;
+    private final Field[] fields;
+
+    SampleType(String typeName, Field... fields) {
+        this.typeName = typeName;
+        this.fields = fields;
+    }
+
+    String typeName() {
+        return typeName;
+    }
+
+    /**
+     * Returns the value bins of the type; empty for {@link #CUSTOM}, whose bins depend on the measurements.
+     */
+    Field[] fields() {
+        return fields;
+    }
+
+    /**
+     * Whether the first field is the count of recordings in the step, zero when the meter was idle.
+     */
+    boolean isStepBased() {
+        switch (this) {
+            case COUNTER:
+            case TIMER:
+            case DISTRIBUTION_SUMMARY:
+            case FUNCTION_COUNTER:
+            case FUNCTION_TIMER:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * A value bin of a sample.
+     */
+    static final class Field {
+
+        private static final Map<Statistic, Field> STATISTICS = new EnumMap<>(Statistic.class);
+
+        static {
+            for (Statistic statistic : Statistic.values()) {
+                STATISTICS.put(statistic, new Field(statistic.getTagValueRepresentation(), false, statistic));
+            }
+        }
+
+        private final String name;
+        private final boolean integral;
+        private final Statistic statistic;
+
+        private Field(String name, boolean integral, Statistic statistic) {
+            this.name = name;
+            this.integral = integral;
+            this.statistic = statistic;
+        }
+
+        static Field of(String name) {
+            return new Field(name, false, null);
+        }
+
+        static Field integral(String name) {
+            return new Field(name, true, null);
+        }
+
+        static Field of(Statistic statistic) {
+            return STATISTICS.get(statistic);
+        }
+
+        String name() {
+            return name;
+        }
+
+        /**
+         * Returns the statistic of a custom meter measurement, null for the fields of the other types.
+         */
+        Statistic statistic() {
+            return statistic;
+        }
+
+        boolean isIntegral() {
+            return integral;
+        }
+
+        Value value(double value) {
+            return integral ? Value.get((long) value) : Value.get(value);
+        }
+    }
+}
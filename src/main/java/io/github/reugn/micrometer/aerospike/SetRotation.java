@@ -0,0 +1,45 @@
+package io.github.reugn.micrometer.aerospike;
+
+/**
+ * The rotation of the set of the meter records. The records of each period are written to one of
+ * a fixed number of sets named after the base set, such as {@code micrometer_3}, so that the records
+ * of an expired period are removed by truncating its set instead of expiring record by record.
+ * <p>
+ * A namespace holds a limited number of set names, and truncating a set does not free its name,
+ * so the sets are reused in a cycle spanning the retention instead of named after the date. The
+ * retention may span at most {@value #MAX_SETS} sets.
+ *
+ * @see AerospikeConfig#setRotation()
+ */
+public enum SetRotation {
+
+    /**
+     * All records are written to the base set.
+     */
+    NONE(0),
+
+    /**
+     * A set per UTC hour.
+     */
+    HOURLY(3_600_000),
+
+    /**
+     * A set per UTC day.
+     */
+    DAILY(86_400_000);
+
+    /**
+     * The maximum number of sets of a rotation.
+     */
+    public static final int MAX_SETS = 256;
+
+    private final long periodMillis;
+
+    SetRotation(long periodMillis) {
+        this.periodMillis = periodMillis;
+    }
+
+    long periodMillis() {
+        return periodMillis;
+    }
+}
@@ -0,0 +1,68 @@
+package io.github.reugn.micrometer.aerospike;
+
+import com.aerospike.client.AerospikeException;
+import com.aerospike.client.IAerospikeClient;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Truncates the rotated sets whose whole period is older than the set retention.
+ * <p>
+ * Called after each publish, it truncates the sets of the periods that expired since the last call.
+ * The first call also truncates the other sets that hold no records of the retention span, so the
+ * records left over by a previous run are removed. A set that fails to be truncated is tried again
+ * on the next call.
+ *
+ * @see AerospikeConfig#setRetention()
+ */
+final class SetTruncator {
+
+    private static final Logger logger = LoggerFactory.getLogger(SetTruncator.class);
+
+    private final IAerospikeClient client;
+    private final String namespace;
+    private final RotatedSets rotatedSets;
+    private final long retentionMillis;
+    private final Counter truncated;
+
+    // only accessed by the publishing thread
+    private long lastTruncated = Long.MIN_VALUE;
+
+    SetTruncator(IAerospikeClient client, AerospikeConfig config, MeterRegistry registry) {
+        if (config.setRotation() == SetRotation.NONE) {
+            throw new IllegalArgumentException("set retention requires a set rotation");
+        }
+        this.client = client;
+        this.namespace = config.namespace();
+        this.rotatedSets = new RotatedSets(config);
+        this.retentionMillis = config.setRetention().toMillis();
+        this.truncated = Counter.builder("aerospike.registry.sets.truncated")
+                .description("Rotated metric sets truncated after their retention")
+                .register(registry);
+    }
+
+    /**
+     * Truncates the sets whose period ended before the retention span preceding the given time.
+     */
+    void truncateExpired(long now) {
+        long expired = rotatedSets.period(now - retentionMillis) - 1;
+        // the periods from the oldest one up to the current one take each set once
+        long oldest = rotatedSets.period(now) - rotatedSets.slots() + 1;
+        long period = lastTruncated == Long.MIN_VALUE ? oldest : Math.max(lastTruncated + 1, oldest);
+        for (; period <= expired; period++) {
+            String set = rotatedSets.periodSetName(period);
+            try {
+                // truncates the whole set, including the records written late by a spool replay
+                client.truncate(null, namespace, set, null);
+            } catch (AerospikeException e) {
+                logger.warn("Failed to truncate the expired metric set {}", set, e);
+                return;
+            }
+            logger.debug("Truncated the expired metric set {}", set);
+            lastTruncated = period;
+            truncated.increment();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package io.github.reugn.micrometer.aerospike;
+
+import com.aerospike.client.BatchRecord;
+import com.aerospike.client.IAerospikeClient;
+import com.aerospike.client.ResultCode;
+import com.aerospike.client.policy.BatchPolicy;
+import com.aerospike.client.policy.BatchWritePolicy;
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spools the batches that failed to be written and replays them at a limited rate.
+ * <p>
+ * Replay runs every second and writes up to the configured number of batches. A batch that fails
+ * again, or has all of its records rejected with a transient error, stays in the spool and ends the run,
+ * so replay resumes once the cluster accepts writes. A batch whose records are all rejected with
+ * a permanent error, or with transient errors on {@value #MAX_REJECTED_REPLAYS} runs in a row, is dropped,
+ * so it does not block the batches behind it. A replayed batch with some rejected records is not
+ * spooled again.
+ */
+final class SpoolReplayer implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpoolReplayer.class);
+
+    static final int MAX_REJECTED_REPLAYS = 30;
+
+    private final BatchSpool spool;
+    private final IAerospikeClient client;
+    private final BatchPolicy batchPolicy;
+    private final BatchWritePolicy writePolicy;
+    private final int replayRate;
+    private final Clock clock;
+    private final Counter replayed;
+    private final Counter dropped;
+    private final ScheduledExecutorService executor;
+
+    // only accessed by the replay thread
+    private int rejectedReplays;
+
+    SpoolReplayer(BatchSpool spool, IAerospikeClient client, AerospikeConfig config, Clock clock,
+                  ThreadFactory threadFactory, MeterRegistry registry) {
+        if (config.spoolReplayRate() < 1) {
+            throw new IllegalArgumentException("spool replay rate must be positive");
+        }
+        this.spool = spool;
+        this.client = client;
+        this.batchPolicy = config.batchPolicy();
+        this.writePolicy = config.batchWritePolicy();
+        this.replayRate = config.spoolReplayRate();
+        this.clock = clock;
+
+        Gauge.builder("aerospike.spool.depth", spool, BatchSpool::depth)
+                .description("Metric batches waiting in the spool")
+                .register(registry);
+        TimeGauge.builder("aerospike.spool.lag", this, TimeUnit.MILLISECONDS, SpoolReplayer::lag)
+                .description("Age of the oldest metric batch waiting in the spool")
+                .register(registry);
+        FunctionCounter.builder("aerospike.spool.evicted", spool, BatchSpool::evicted)
+                .description("Metric batches dropped to keep the spool within its size cap")
+                .register(registry);
+        this.replayed = Counter.builder("aerospike.spool.replayed")
+                .description("Metric batches replayed from the spool")
+                .register(registry);
+
+        this.dropped = Counter.builder("aerospike.spool.dropped")
+                .description("Spooled metric batches dropped after their records were rejected on replay")
+                .register(registry);
+
+        this.executor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        executor.scheduleWithFixedDelay(this::replay, 1, 1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stores a failed batch for replay.
+     */
+    void spool(List<BatchRecord> batch) {
+        try {
+            if (!spool.append(BatchCodec.encode(batch), clock.wallTime())) {
+                logger.warn("Metric batch of {} records is too large to be spooled", batch.size());
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to spool metrics", e);
+        }
+    }
+
+    /**
+     * Replays up to the configured rate of batches, stopping at the first batch that fails.
+     */
+    void replay() {
+        try {
+            for (int i = 0; i < replayRate; i++) {
+                byte[] data = spool.peek();
+                if (data == null) {
+                    return;
+                }
+                List<BatchRecord> batch;
+                try {
+                    batch = BatchCodec.decode(data, writePolicy);
+                } catch (RuntimeException e) {
+                    logger.warn("Dropping unreadable spooled metrics", e);
+                    spool.remove();
+                    continue;
+                }
+                try {
+                    if (!client.operate(batchPolicy, batch)) {
+                        if (batch.stream().noneMatch(r -> r.resultCode == ResultCode.OK)) {
+                            boolean permanent = batch.stream().noneMatch(r -> BatchPublisher.isTransient(r.resultCode));
+                            if (!permanent && ++rejectedReplays < MAX_REJECTED_REPLAYS) {
+                                logger.debug("Spooled metrics were rejected by Aerospike");
+                                return;
+                            }
+                            logger.warn("Dropping spooled metrics rejected by Aerospike with result code {}",
+                                    batch.get(0).resultCode);
+                            rejectedReplays = 0;
+                            spool.remove();
+                            dropped.increment();
+                            continue;
+                        }
+                        logger.warn("Failed to replay some spooled metrics to Aerospike");
+                    }
+                } catch (Exception e) {
+                    logger.debug("Failed to replay spooled metrics to Aerospike", e);
+                    return;
+                }
+                rejectedReplays = 0;
+                spool.remove();
+                replayed.increment();
+            }
+        } catch (Throwable t) {
+            logger.warn("Failed to replay spooled metrics", t);
+        }
+    }
+
+    private double lag() {
+        long oldest = spool.oldestTimestamp();
+        return oldest < 0 ? 0 : Math.max(0, clock.wallTime() - oldest);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        spool.close();
+    }
+}
@@ -0,0 +1,20 @@
+package io.github.reugn.micrometer.aerospike;
+
+/**
+ * The layout of the meter records in Aerospike.
+ */
+public enum StorageMode {
+
+    /**
+     * A new record per meter and publish step, keyed by the series id and the step timestamp.
+     * Each field is written to a plain bin.
+     */
+    RECORD_PER_STEP,
+
+    /**
+     * A record per meter and time bucket, keyed by the series id and the bucket start time.
+     * Each field is a key-ordered map bin from the step timestamp to the sample value,
+     * so a publish step adds a map entry instead of creating a record.
+     */
+    BUCKETED
+}
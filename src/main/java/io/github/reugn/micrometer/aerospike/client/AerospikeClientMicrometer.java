@@ -22,7 +22,6 @@ import com.aerospike.client.query.Statement;
 import com.aerospike.client.task.ExecuteTask;
 import com.aerospike.client.task.IndexTask;
 import com.aerospike.client.task.RegisterTask;
-import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 
@@ -35,6 +34,8 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
     private final IAerospikeClient delegate;
     private final MeterRegistry registry;
     private final MicrometerPolicy micrometerPolicy;
+    private final KeyScopes keyScopes;
+    private final ScanScopes scanScopes;
 
     public AerospikeClientMicrometer(IAerospikeClient delegate, MeterRegistry registry) {
         this(delegate, registry, MicrometerPolicy.DEFAULT);
@@ -44,22 +45,76 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
         this.delegate = Objects.requireNonNull(delegate, "delegate is null");
         this.registry = Objects.requireNonNull(registry, "registry is null");
         this.micrometerPolicy = Objects.requireNonNull(micrometerPolicy, "micrometerPolicy is null");
+        this.keyScopes = new KeyScopes(registry, micrometerPolicy);
+        this.scanScopes = new ScanScopes(registry);
+    }
+
+    private MethodMeters meters(String methodName) {
+        return keyScopes.none().meters(methodName);
+    }
+
+    private MethodMeters meters(String methodName, Policy policy, Key key) {
+        if (!micrometerPolicy.isTagged()) {
+            return meters(methodName);
+        }
+        return keyScopes.scope(policy, key).meters(methodName);
     }
 
     private void countMethodCalls(String methodName) {
+        countMethodCalls(meters(methodName));
+    }
+
+    private void countMethodCalls(MethodMeters meters) {
         if (micrometerPolicy.isMeterMethodCalls()) {
-            Counter.builder("client." + methodName + ".count").register(registry).increment();
+            meters.counter().increment();
         }
     }
 
-    private void countErrors() {
+    private void countErrors(String methodName, Throwable t) {
+        countErrors(meters(methodName), t);
+    }
+
+    private void countErrors(MethodMeters meters, Throwable t) {
         if (micrometerPolicy.isMeterErrors()) {
-            Counter.builder("client.error.count").register(registry).increment();
+            meters.errorMeters().record(t);
         }
     }
 
     private Timer timer(String methodName) {
-        return Timer.builder("client." + methodName + ".time").register(registry);
+        return meters(methodName).timer();
+    }
+
+    private BatchMeters batchMeters(MethodMeters meters) {
+        return micrometerPolicy.isMeterBatches() ? meters.batchMeters() : null;
+    }
+
+    private StreamSample streamSample(String methodName) {
+        return micrometerPolicy.isMeterStreams() ? meters(methodName).streamMeters().start() : null;
+    }
+
+    private ScanSample nodeScanSample(String nodeName, StreamSample sample) {
+        if (sample == null || nodeName == null) {
+            return null;
+        }
+        return scanScopes.node(nodeName).start();
+    }
+
+    private ScanSample partitionScanSample(PartitionFilter partitionFilter, StreamSample sample) {
+        if (sample == null || partitionFilter == null) {
+            return null;
+        }
+        return scanScopes.partitions(partitionFilter).start();
+    }
+
+    private ListenerMeters listenerMeters(String methodName) {
+        return listenerMeters(meters(methodName));
+    }
+
+    private ListenerMeters listenerMeters(MethodMeters meters) {
+        if (!micrometerPolicy.isMeterMethodTime() && !micrometerPolicy.isMeterErrors()) {
+            return null;
+        }
+        return meters.listenerMeters(micrometerPolicy.isMeterMethodTime(), micrometerPolicy.isMeterErrors());
     }
 
     @Override
@@ -142,7 +197,7 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
         try {
             return delegate.getNode(nodeName);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("getNode", t);
             throw t;
         }
     }
@@ -159,15 +214,16 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
 
     @Override
     public void put(WritePolicy policy, Key key, Bin... bins) throws AerospikeException {
-        countMethodCalls("put");
+        MethodMeters meters = meters("put", policy, key);
+        countMethodCalls(meters);
         try {
             if (micrometerPolicy.isMeterMethodTime()) {
-                timer("put").record(() -> delegate.put(policy, key, bins));
+                meters.timer().record(() -> delegate.put(policy, key, bins));
                 return;
             }
             delegate.put(policy, key, bins);
         } catch (Throwable t) {
-            countErrors();
+            countErrors(meters, t);
             throw t;
         }
     }
@@ -175,26 +231,28 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
     @Override
     public void put(EventLoop eventLoop, WriteListener listener, WritePolicy policy,
                     Key key, Bin... bins) throws AerospikeException {
-        countMethodCalls("put");
+        MethodMeters meters = meters("put", policy, key);
+        countMethodCalls(meters);
         try {
-            delegate.put(eventLoop, listener, policy, key, bins);
+            delegate.put(eventLoop, MeteredListeners.wrap(listener, listenerMeters(meters)), policy, key, bins);
         } catch (Throwable t) {
-            countErrors();
+            countErrors(meters, t);
             throw t;
         }
     }
 
     @Override
     public void append(WritePolicy policy, Key key, Bin... bins) throws AerospikeException {
-        countMethodCalls("append");
+        MethodMeters meters = meters("append", policy, key);
+        countMethodCalls(meters);
         try {
             if (micrometerPolicy.isMeterMethodTime()) {
-                timer("append").record(() -> delegate.append(policy, key, bins));
+                meters.timer().record(() -> delegate.append(policy, key, bins));
                 return;
             }
             delegate.append(policy, key, bins);
         } catch (Throwable t) {
-            countErrors();
+            countErrors(meters, t);
             throw t;
         }
     }
@@ -202,26 +260,28 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
     @Override
     public void append(EventLoop eventLoop, WriteListener listener, WritePolicy policy,
                        Key key, Bin... bins) throws AerospikeException {
-        countMethodCalls("append");
+        MethodMeters meters = meters("append", policy, key);
+        countMethodCalls(meters);
         try {
-            delegate.append(eventLoop, listener, policy, key, bins);
+            delegate.append(eventLoop, MeteredListeners.wrap(listener, listenerMeters(meters)), policy, key, bins);
         } catch (Throwable t) {
-            countErrors();
+            countErrors(meters, t);
             throw t;
         }
     }
 
     @Override
     public void prepend(WritePolicy policy, Key key, Bin... bins) throws AerospikeException {
-        countMethodCalls("prepend");
+        MethodMeters meters = meters("prepend", policy, key);
+        countMethodCalls(meters);
         try {
             if (micrometerPolicy.isMeterMethodTime()) {
-                timer("prepend").record(() -> delegate.prepend(policy, key, bins));
+                meters.timer().record(() -> delegate.prepend(policy, key, bins));
                 return;
             }
             delegate.prepend(policy, key, bins);
         } catch (Throwable t) {
-            countErrors();
+            countErrors(meters, t);
             throw t;
         }
     }
@@ -229,26 +289,28 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
     @Override
     public void prepend(EventLoop eventLoop, WriteListener listener, WritePolicy policy,
                         Key key, Bin... bins) throws AerospikeException {
-        countMethodCalls("prepend");
+        MethodMeters meters = meters("prepend", policy, key);
+        countMethodCalls(meters);
         try {
-            delegate.prepend(eventLoop, listener, policy, key, bins);
+            delegate.prepend(eventLoop, MeteredListeners.wrap(listener, listenerMeters(meters)), policy, key, bins);
         } catch (Throwable t) {
-            countErrors();
+            countErrors(meters, t);
             throw t;
         }
     }
 
     @Override
     public void add(WritePolicy policy, Key key, Bin... bins) throws AerospikeException {
-        countMethodCalls("add");
+        MethodMeters meters = meters("add", policy, key);
+        countMethodCalls(meters);
         try {
             if (micrometerPolicy.isMeterMethodTime()) {
-                timer("add").record(() -> delegate.add(policy, key, bins));
+                meters.timer().record(() -> delegate.add(policy, key, bins));
                 return;
             }
             delegate.add(policy, key, bins);
         } catch (Throwable t) {
-            countErrors();
+            countErrors(meters, t);
             throw t;
         }
     }
@@ -256,11 +318,12 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
     @Override
     public void add(EventLoop eventLoop, WriteListener listener, WritePolicy policy,
                     Key key, Bin... bins) throws AerospikeException {
-        countMethodCalls("add");
+        MethodMeters meters = meters("add", policy, key);
+        countMethodCalls(meters);
         try {
-            delegate.add(eventLoop, listener, policy, key, bins);
+            delegate.add(eventLoop, MeteredListeners.wrap(listener, listenerMeters(meters)), policy, key, bins);
         } catch (Throwable t) {
-            countErrors();
+            countErrors(meters, t);
             throw t;
         }
     }
@@ -268,16 +331,17 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
     @Override
     @SuppressWarnings("ConstantConditions")
     public boolean delete(WritePolicy policy, Key key) throws AerospikeException {
-        countMethodCalls("delete");
+        MethodMeters meters = meters("delete", policy, key);
+        countMethodCalls(meters);
         try {
             if (micrometerPolicy.isMeterMethodTime()) {
-                return timer("delete").record(
+                return meters.timer().record(
                         () -> delegate.delete(policy, key)
                 );
             }
             return delegate.delete(policy, key);
         } catch (Throwable t) {
-            countErrors();
+            countErrors(meters, t);
             throw t;
         }
     }
@@ -285,11 +349,12 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
     @Override
     public void delete(EventLoop eventLoop, DeleteListener listener, WritePolicy policy,
                        Key key) throws AerospikeException {
-        countMethodCalls("delete");
+        MethodMeters meters = meters("delete", policy, key);
+        countMethodCalls(meters);
         try {
-            delegate.delete(eventLoop, listener, policy, key);
+            delegate.delete(eventLoop, MeteredListeners.wrap(listener, listenerMeters(meters)), policy, key);
         } catch (Throwable t) {
-            countErrors();
+            countErrors(meters, t);
             throw t;
         }
     }
@@ -297,16 +362,21 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
     @Override
     public BatchResults delete(BatchPolicy batchPolicy, BatchDeletePolicy deletePolicy,
                                Key[] keys) throws AerospikeException {
-        countMethodCalls("delete");
-        try {
-            if (micrometerPolicy.isMeterMethodTime()) {
-                return timer("delete").record(
-                        () -> delegate.delete(batchPolicy, deletePolicy, keys)
-                );
+        MethodMeters meters = meters("delete");
+        countMethodCalls(meters);
+        BatchMeters batchMeters = batchMeters(meters);
+        long startTime = batchMeters != null ? batchMeters.start() : 0;
+        try {
+            BatchResults result = micrometerPolicy.isMeterMethodTime()
+                    ? meters.timer().record(() -> delegate.delete(batchPolicy, deletePolicy, keys))
+                    : delegate.delete(batchPolicy, deletePolicy, keys);
+            if (batchMeters != null) {
+                batchMeters.record(startTime, keys.length);
+                batchMeters.recordResults(result.records);
             }
-            return delegate.delete(batchPolicy, deletePolicy, keys);
+            return result;
         } catch (Throwable t) {
-            countErrors();
+            countErrors(meters, t);
             throw t;
         }
     }
@@ -316,9 +386,10 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
                        BatchDeletePolicy deletePolicy, Key[] keys) throws AerospikeException {
         countMethodCalls("delete");
         try {
-            delegate.delete(eventLoop, listener, batchPolicy, deletePolicy, keys);
+            delegate.delete(eventLoop, MeteredListeners.wrap(listener, listenerMeters("delete")),
+                    batchPolicy, deletePolicy, keys);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("delete", t);
             throw t;
         }
     }
@@ -328,9 +399,10 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
                        BatchDeletePolicy deletePolicy, Key[] keys) throws AerospikeException {
         countMethodCalls("delete");
         try {
-            delegate.delete(eventLoop, listener, batchPolicy, deletePolicy, keys);
+            delegate.delete(eventLoop, MeteredListeners.wrap(listener, listenerMeters("delete")),
+                    batchPolicy, deletePolicy, keys);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("delete", t);
             throw t;
         }
     }
@@ -341,33 +413,35 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
         try {
             delegate.truncate(policy, ns, set, beforeLastUpdate);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("truncate", t);
             throw t;
         }
     }
 
     @Override
     public void touch(WritePolicy policy, Key key) throws AerospikeException {
-        countMethodCalls("touch");
+        MethodMeters meters = meters("touch", policy, key);
+        countMethodCalls(meters);
         try {
             if (micrometerPolicy.isMeterMethodTime()) {
-                timer("touch").record(() -> delegate.touch(policy, key));
+                meters.timer().record(() -> delegate.touch(policy, key));
                 return;
             }
             delegate.touch(policy, key);
         } catch (Throwable t) {
-            countErrors();
+            countErrors(meters, t);
             throw t;
         }
     }
 
     @Override
     public void touch(EventLoop eventLoop, WriteListener listener, WritePolicy policy, Key key) throws AerospikeException {
-        countMethodCalls("touch");
+        MethodMeters meters = meters("touch", policy, key);
+        countMethodCalls(meters);
         try {
-            delegate.touch(eventLoop, listener, policy, key);
+            delegate.touch(eventLoop, MeteredListeners.wrap(listener, listenerMeters(meters)), policy, key);
         } catch (Throwable t) {
-            countErrors();
+            countErrors(meters, t);
             throw t;
         }
     }
@@ -375,43 +449,49 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
     @Override
     @SuppressWarnings("ConstantConditions")
     public boolean exists(Policy policy, Key key) throws AerospikeException {
-        countMethodCalls("exists");
+        MethodMeters meters = meters("exists", policy, key);
+        countMethodCalls(meters);
         try {
             if (micrometerPolicy.isMeterMethodTime()) {
-                return timer("exists").record(
+                return meters.timer().record(
                         () -> delegate.exists(policy, key)
                 );
             }
             return delegate.exists(policy, key);
         } catch (Throwable t) {
-            countErrors();
+            countErrors(meters, t);
             throw t;
         }
     }
 
     @Override
     public void exists(EventLoop eventLoop, ExistsListener listener, Policy policy, Key key) throws AerospikeException {
-        countMethodCalls("exists");
+        MethodMeters meters = meters("exists", policy, key);
+        countMethodCalls(meters);
         try {
-            delegate.exists(eventLoop, listener, policy, key);
+            delegate.exists(eventLoop, MeteredListeners.wrap(listener, listenerMeters(meters)), policy, key);
         } catch (Throwable t) {
-            countErrors();
+            countErrors(meters, t);
             throw t;
         }
     }
 
     @Override
     public boolean[] exists(BatchPolicy policy, Key[] keys) throws AerospikeException {
-        countMethodCalls("exists");
-        try {
-            if (micrometerPolicy.isMeterMethodTime()) {
-                return timer("exists").record(
-                        () -> delegate.exists(policy, keys)
-                );
+        MethodMeters meters = meters("exists");
+        countMethodCalls(meters);
+        BatchMeters batchMeters = batchMeters(meters);
+        long startTime = batchMeters != null ? batchMeters.start() : 0;
+        try {
+            boolean[] result = micrometerPolicy.isMeterMethodTime()
+                    ? meters.timer().record(() -> delegate.exists(policy, keys))
+                    : delegate.exists(policy, keys);
+            if (batchMeters != null) {
+                batchMeters.record(startTime, keys.length);
             }
-            return delegate.exists(policy, keys);
+            return result;
         } catch (Throwable t) {
-            countErrors();
+            countErrors(meters, t);
             throw t;
         }
     }
@@ -421,9 +501,9 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
                        Key[] keys) throws AerospikeException {
         countMethodCalls("exists");
         try {
-            delegate.exists(eventLoop, listener, policy, keys);
+            delegate.exists(eventLoop, MeteredListeners.wrap(listener, listenerMeters("exists")), policy, keys);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("exists", t);
             throw t;
         }
     }
@@ -433,52 +513,55 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
                        Key[] keys) throws AerospikeException {
         countMethodCalls("exists");
         try {
-            delegate.exists(eventLoop, listener, policy, keys);
+            delegate.exists(eventLoop, MeteredListeners.wrap(listener, listenerMeters("exists")), policy, keys);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("exists", t);
             throw t;
         }
     }
 
     @Override
     public Record get(Policy policy, Key key) throws AerospikeException {
-        countMethodCalls("get");
+        MethodMeters meters = meters("get", policy, key);
+        countMethodCalls(meters);
         try {
             if (micrometerPolicy.isMeterMethodTime()) {
-                return timer("get").record(
+                return meters.timer().record(
                         () -> delegate.get(policy, key)
                 );
             }
             return delegate.get(policy, key);
         } catch (Throwable t) {
-            countErrors();
+            countErrors(meters, t);
             throw t;
         }
     }
 
     @Override
     public void get(EventLoop eventLoop, RecordListener listener, Policy policy, Key key) throws AerospikeException {
-        countMethodCalls("get");
+        MethodMeters meters = meters("get", policy, key);
+        countMethodCalls(meters);
         try {
-            delegate.get(eventLoop, listener, policy, key);
+            delegate.get(eventLoop, MeteredListeners.wrap(listener, listenerMeters(meters)), policy, key);
         } catch (Throwable t) {
-            countErrors();
+            countErrors(meters, t);
             throw t;
         }
     }
 
     @Override
     public Record get(Policy policy, Key key, String... binNames) throws AerospikeException {
-        countMethodCalls("get");
+        MethodMeters meters = meters("get", policy, key);
+        countMethodCalls(meters);
         try {
             if (micrometerPolicy.isMeterMethodTime()) {
-                return timer("get").record(
+                return meters.timer().record(
                         () -> delegate.get(policy, key, binNames)
                 );
             }
             return delegate.get(policy, key, binNames);
         } catch (Throwable t) {
-            countErrors();
+            countErrors(meters, t);
             throw t;
         }
     }
@@ -486,27 +569,29 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
     @Override
     public void get(EventLoop eventLoop, RecordListener listener, Policy policy,
                     Key key, String... binNames) throws AerospikeException {
-        countMethodCalls("get");
+        MethodMeters meters = meters("get", policy, key);
+        countMethodCalls(meters);
         try {
-            delegate.get(eventLoop, listener, policy, key, binNames);
+            delegate.get(eventLoop, MeteredListeners.wrap(listener, listenerMeters(meters)), policy, key, binNames);
         } catch (Throwable t) {
-            countErrors();
+            countErrors(meters, t);
             throw t;
         }
     }
 
     @Override
     public Record getHeader(Policy policy, Key key) throws AerospikeException {
-        countMethodCalls("getHeader");
+        MethodMeters meters = meters("getHeader", policy, key);
+        countMethodCalls(meters);
         try {
             if (micrometerPolicy.isMeterMethodTime()) {
-                return timer("getHeader").record(
+                return meters.timer().record(
                         () -> delegate.getHeader(policy, key)
                 );
             }
             return delegate.getHeader(policy, key);
         } catch (Throwable t) {
-            countErrors();
+            countErrors(meters, t);
             throw t;
         }
     }
@@ -514,11 +599,12 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
     @Override
     public void getHeader(EventLoop eventLoop, RecordListener listener, Policy policy,
                           Key key) throws AerospikeException {
-        countMethodCalls("getHeader");
+        MethodMeters meters = meters("getHeader", policy, key);
+        countMethodCalls(meters);
         try {
-            delegate.getHeader(eventLoop, listener, policy, key);
+            delegate.getHeader(eventLoop, MeteredListeners.wrap(listener, listenerMeters(meters)), policy, key);
         } catch (Throwable t) {
-            countErrors();
+            countErrors(meters, t);
             throw t;
         }
     }
@@ -526,16 +612,21 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
     @Override
     @SuppressWarnings("ConstantConditions")
     public boolean get(BatchPolicy policy, List<BatchRead> records) throws AerospikeException {
-        countMethodCalls("get");
-        try {
-            if (micrometerPolicy.isMeterMethodTime()) {
-                return timer("get").record(
-                        () -> delegate.get(policy, records)
-                );
+        MethodMeters meters = meters("get");
+        countMethodCalls(meters);
+        BatchMeters batchMeters = batchMeters(meters);
+        long startTime = batchMeters != null ? batchMeters.start() : 0;
+        try {
+            boolean result = micrometerPolicy.isMeterMethodTime()
+                    ? meters.timer().record(() -> delegate.get(policy, records))
+                    : delegate.get(policy, records);
+            if (batchMeters != null) {
+                batchMeters.record(startTime, records.size());
+                batchMeters.recordResults(records);
             }
-            return delegate.get(policy, records);
+            return result;
         } catch (Throwable t) {
-            countErrors();
+            countErrors(meters, t);
             throw t;
         }
     }
@@ -545,9 +636,9 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
                     List<BatchRead> records) throws AerospikeException {
         countMethodCalls("get");
         try {
-            delegate.get(eventLoop, listener, policy, records);
+            delegate.get(eventLoop, MeteredListeners.wrap(listener, listenerMeters("get")), policy, records);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("get", t);
             throw t;
         }
     }
@@ -557,25 +648,30 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
                     List<BatchRead> records) throws AerospikeException {
         countMethodCalls("get");
         try {
-            delegate.get(eventLoop, listener, policy, records);
+            delegate.get(eventLoop, MeteredListeners.wrap(listener, listenerMeters("get")), policy, records);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("get", t);
             throw t;
         }
     }
 
     @Override
     public Record[] get(BatchPolicy policy, Key[] keys) throws AerospikeException {
-        countMethodCalls("get");
-        try {
-            if (micrometerPolicy.isMeterMethodTime()) {
-                return timer("get").record(
-                        () -> delegate.get(policy, keys)
-                );
+        MethodMeters meters = meters("get");
+        countMethodCalls(meters);
+        BatchMeters batchMeters = batchMeters(meters);
+        long startTime = batchMeters != null ? batchMeters.start() : 0;
+        try {
+            Record[] result = micrometerPolicy.isMeterMethodTime()
+                    ? meters.timer().record(() -> delegate.get(policy, keys))
+                    : delegate.get(policy, keys);
+            if (batchMeters != null) {
+                batchMeters.record(startTime, keys.length);
+                batchMeters.recordResults(result);
             }
-            return delegate.get(policy, keys);
+            return result;
         } catch (Throwable t) {
-            countErrors();
+            countErrors(meters, t);
             throw t;
         }
     }
@@ -585,9 +681,9 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
                     Key[] keys) throws AerospikeException {
         countMethodCalls("get");
         try {
-            delegate.get(eventLoop, listener, policy, keys);
+            delegate.get(eventLoop, MeteredListeners.wrap(listener, listenerMeters("get")), policy, keys);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("get", t);
             throw t;
         }
     }
@@ -597,25 +693,30 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
                     Key[] keys) throws AerospikeException {
         countMethodCalls("get");
         try {
-            delegate.get(eventLoop, listener, policy, keys);
+            delegate.get(eventLoop, MeteredListeners.wrap(listener, listenerMeters("get")), policy, keys);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("get", t);
             throw t;
         }
     }
 
     @Override
     public Record[] get(BatchPolicy policy, Key[] keys, String... binNames) throws AerospikeException {
-        countMethodCalls("get");
-        try {
-            if (micrometerPolicy.isMeterMethodTime()) {
-                return timer("get").record(
-                        () -> delegate.get(policy, keys, binNames)
-                );
+        MethodMeters meters = meters("get");
+        countMethodCalls(meters);
+        BatchMeters batchMeters = batchMeters(meters);
+        long startTime = batchMeters != null ? batchMeters.start() : 0;
+        try {
+            Record[] result = micrometerPolicy.isMeterMethodTime()
+                    ? meters.timer().record(() -> delegate.get(policy, keys, binNames))
+                    : delegate.get(policy, keys, binNames);
+            if (batchMeters != null) {
+                batchMeters.record(startTime, keys.length);
+                batchMeters.recordResults(result);
             }
-            return delegate.get(policy, keys, binNames);
+            return result;
         } catch (Throwable t) {
-            countErrors();
+            countErrors(meters, t);
             throw t;
         }
     }
@@ -625,9 +726,9 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
                     String... binNames) throws AerospikeException {
         countMethodCalls("get");
         try {
-            delegate.get(eventLoop, listener, policy, keys, binNames);
+            delegate.get(eventLoop, MeteredListeners.wrap(listener, listenerMeters("get")), policy, keys, binNames);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("get", t);
             throw t;
         }
     }
@@ -637,25 +738,30 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
                     String... binNames) throws AerospikeException {
         countMethodCalls("get");
         try {
-            delegate.get(eventLoop, listener, policy, keys, binNames);
+            delegate.get(eventLoop, MeteredListeners.wrap(listener, listenerMeters("get")), policy, keys, binNames);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("get", t);
             throw t;
         }
     }
 
     @Override
     public Record[] get(BatchPolicy policy, Key[] keys, Operation... ops) throws AerospikeException {
-        countMethodCalls("get");
-        try {
-            if (micrometerPolicy.isMeterMethodTime()) {
-                return timer("get").record(
-                        () -> delegate.get(policy, keys, ops)
-                );
+        MethodMeters meters = meters("get");
+        countMethodCalls(meters);
+        BatchMeters batchMeters = batchMeters(meters);
+        long startTime = batchMeters != null ? batchMeters.start() : 0;
+        try {
+            Record[] result = micrometerPolicy.isMeterMethodTime()
+                    ? meters.timer().record(() -> delegate.get(policy, keys, ops))
+                    : delegate.get(policy, keys, ops);
+            if (batchMeters != null) {
+                batchMeters.record(startTime, keys.length);
+                batchMeters.recordResults(result);
             }
-            return delegate.get(policy, keys, ops);
+            return result;
         } catch (Throwable t) {
-            countErrors();
+            countErrors(meters, t);
             throw t;
         }
     }
@@ -665,9 +771,9 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
                     Operation... ops) throws AerospikeException {
         countMethodCalls("get");
         try {
-            delegate.get(eventLoop, listener, policy, keys, ops);
+            delegate.get(eventLoop, MeteredListeners.wrap(listener, listenerMeters("get")), policy, keys, ops);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("get", t);
             throw t;
         }
     }
@@ -677,25 +783,30 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
                     Operation... ops) throws AerospikeException {
         countMethodCalls("get");
         try {
-            delegate.get(eventLoop, listener, policy, keys, ops);
+            delegate.get(eventLoop, MeteredListeners.wrap(listener, listenerMeters("get")), policy, keys, ops);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("get", t);
             throw t;
         }
     }
 
     @Override
     public Record[] getHeader(BatchPolicy policy, Key[] keys) throws AerospikeException {
-        countMethodCalls("getHeader");
-        try {
-            if (micrometerPolicy.isMeterMethodTime()) {
-                return timer("getHeader").record(
-                        () -> delegate.getHeader(policy, keys)
-                );
+        MethodMeters meters = meters("getHeader");
+        countMethodCalls(meters);
+        BatchMeters batchMeters = batchMeters(meters);
+        long startTime = batchMeters != null ? batchMeters.start() : 0;
+        try {
+            Record[] result = micrometerPolicy.isMeterMethodTime()
+                    ? meters.timer().record(() -> delegate.getHeader(policy, keys))
+                    : delegate.getHeader(policy, keys);
+            if (batchMeters != null) {
+                batchMeters.record(startTime, keys.length);
+                batchMeters.recordResults(result);
             }
-            return delegate.getHeader(policy, keys);
+            return result;
         } catch (Throwable t) {
-            countErrors();
+            countErrors(meters, t);
             throw t;
         }
     }
@@ -705,9 +816,9 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
                           Key[] keys) throws AerospikeException {
         countMethodCalls("getHeader");
         try {
-            delegate.get(eventLoop, listener, policy, keys);
+            delegate.getHeader(eventLoop, MeteredListeners.wrap(listener, listenerMeters("getHeader")), policy, keys);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("getHeader", t);
             throw t;
         }
     }
@@ -717,25 +828,26 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
                           Key[] keys) throws AerospikeException {
         countMethodCalls("getHeader");
         try {
-            delegate.get(eventLoop, listener, policy, keys);
+            delegate.getHeader(eventLoop, MeteredListeners.wrap(listener, listenerMeters("getHeader")), policy, keys);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("getHeader", t);
             throw t;
         }
     }
 
     @Override
     public Record operate(WritePolicy policy, Key key, Operation... operations) throws AerospikeException {
-        countMethodCalls("operate");
+        MethodMeters meters = meters("operate", policy, key);
+        countMethodCalls(meters);
         try {
             if (micrometerPolicy.isMeterMethodTime()) {
-                return timer("operate").record(
+                return meters.timer().record(
                         () -> delegate.operate(policy, key, operations)
                 );
             }
             return delegate.operate(policy, key, operations);
         } catch (Throwable t) {
-            countErrors();
+            countErrors(meters, t);
             throw t;
         }
     }
@@ -743,11 +855,13 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
     @Override
     public void operate(EventLoop eventLoop, RecordListener listener, WritePolicy policy, Key key,
                         Operation... operations) throws AerospikeException {
-        countMethodCalls("operate");
+        MethodMeters meters = meters("operate", policy, key);
+        countMethodCalls(meters);
         try {
-            delegate.operate(eventLoop, listener, policy, key, operations);
+            delegate.operate(eventLoop, MeteredListeners.wrap(listener, listenerMeters(meters)),
+                    policy, key, operations);
         } catch (Throwable t) {
-            countErrors();
+            countErrors(meters, t);
             throw t;
         }
     }
@@ -755,16 +869,21 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
     @Override
     @SuppressWarnings("ConstantConditions")
     public boolean operate(BatchPolicy policy, List<BatchRecord> records) throws AerospikeException {
-        countMethodCalls("operate");
-        try {
-            if (micrometerPolicy.isMeterMethodTime()) {
-                return timer("operate").record(
-                        () -> delegate.operate(policy, records)
-                );
+        MethodMeters meters = meters("operate");
+        countMethodCalls(meters);
+        BatchMeters batchMeters = batchMeters(meters);
+        long startTime = batchMeters != null ? batchMeters.start() : 0;
+        try {
+            boolean result = micrometerPolicy.isMeterMethodTime()
+                    ? meters.timer().record(() -> delegate.operate(policy, records))
+                    : delegate.operate(policy, records);
+            if (batchMeters != null) {
+                batchMeters.record(startTime, records.size());
+                batchMeters.recordResults(records);
             }
-            return delegate.operate(policy, records);
+            return result;
         } catch (Throwable t) {
-            countErrors();
+            countErrors(meters, t);
             throw t;
         }
     }
@@ -774,9 +893,9 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
                         List<BatchRecord> records) throws AerospikeException {
         countMethodCalls("operate");
         try {
-            delegate.operate(eventLoop, listener, policy, records);
+            delegate.operate(eventLoop, MeteredListeners.wrap(listener, listenerMeters("operate")), policy, records);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("operate", t);
             throw t;
         }
     }
@@ -786,9 +905,9 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
                         List<BatchRecord> records) throws AerospikeException {
         countMethodCalls("operate");
         try {
-            delegate.operate(eventLoop, listener, policy, records);
+            delegate.operate(eventLoop, MeteredListeners.wrap(listener, listenerMeters("operate")), policy, records);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("operate", t);
             throw t;
         }
     }
@@ -796,16 +915,21 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
     @Override
     public BatchResults operate(BatchPolicy batchPolicy, BatchWritePolicy writePolicy, Key[] keys,
                                 Operation... ops) throws AerospikeException {
-        countMethodCalls("operate");
-        try {
-            if (micrometerPolicy.isMeterMethodTime()) {
-                return timer("operate").record(
-                        () -> delegate.operate(batchPolicy, writePolicy, keys, ops)
-                );
+        MethodMeters meters = meters("operate");
+        countMethodCalls(meters);
+        BatchMeters batchMeters = batchMeters(meters);
+        long startTime = batchMeters != null ? batchMeters.start() : 0;
+        try {
+            BatchResults result = micrometerPolicy.isMeterMethodTime()
+                    ? meters.timer().record(() -> delegate.operate(batchPolicy, writePolicy, keys, ops))
+                    : delegate.operate(batchPolicy, writePolicy, keys, ops);
+            if (batchMeters != null) {
+                batchMeters.record(startTime, keys.length);
+                batchMeters.recordResults(result.records);
             }
-            return delegate.operate(batchPolicy, writePolicy, keys, ops);
+            return result;
         } catch (Throwable t) {
-            countErrors();
+            countErrors(meters, t);
             throw t;
         }
     }
@@ -815,9 +939,10 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
                         BatchWritePolicy writePolicy, Key[] keys, Operation... ops) throws AerospikeException {
         countMethodCalls("operate");
         try {
-            delegate.operate(eventLoop, listener, batchPolicy, writePolicy, keys, ops);
+            delegate.operate(eventLoop, MeteredListeners.wrap(listener, listenerMeters("operate")),
+                    batchPolicy, writePolicy, keys, ops);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("operate", t);
             throw t;
         }
     }
@@ -827,9 +952,10 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
                         BatchWritePolicy writePolicy, Key[] keys, Operation... ops) throws AerospikeException {
         countMethodCalls("operate");
         try {
-            delegate.operate(eventLoop, listener, batchPolicy, writePolicy, keys, ops);
+            delegate.operate(eventLoop, MeteredListeners.wrap(listener, listenerMeters("operate")),
+                    batchPolicy, writePolicy, keys, ops);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("operate", t);
             throw t;
         }
     }
@@ -838,17 +964,21 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
     public void scanAll(ScanPolicy policy, String namespace, String setName, ScanCallback callback,
                         String... binNames) throws AerospikeException {
         countMethodCalls("scanAll");
+        StreamSample sample = streamSample("scanAll");
+        ScanCallback meteredCallback = MeteredStreams.wrapScan(callback, sample);
         try {
             if (micrometerPolicy.isMeterMethodTime()) {
                 timer("scanAll").record(
-                        () -> delegate.scanAll(policy, namespace, setName, callback, binNames)
+                        () -> delegate.scanAll(policy, namespace, setName, meteredCallback, binNames)
                 );
                 return;
             }
-            delegate.scanAll(policy, namespace, setName, callback, binNames);
+            delegate.scanAll(policy, namespace, setName, meteredCallback, binNames);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("scanAll", t);
             throw t;
+        } finally {
+            MeteredStreams.finish(sample);
         }
     }
 
@@ -857,9 +987,10 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
                         String setName, String... binNames) throws AerospikeException {
         countMethodCalls("scanAll");
         try {
-            delegate.scanAll(eventLoop, listener, policy, namespace, setName, binNames);
+            delegate.scanAll(eventLoop, MeteredListeners.wrap(listener, listenerMeters("scanAll")),
+                    policy, namespace, setName, binNames);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("scanAll", t);
             throw t;
         }
     }
@@ -868,17 +999,22 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
     public void scanNode(ScanPolicy policy, String nodeName, String namespace, String setName, ScanCallback callback,
                          String... binNames) throws AerospikeException {
         countMethodCalls("scanNode");
+        StreamSample sample = streamSample("scanNode");
+        ScanSample scanSample = nodeScanSample(nodeName, sample);
+        ScanCallback meteredCallback = MeteredStreams.wrapScan(callback, sample, scanSample);
         try {
             if (micrometerPolicy.isMeterMethodTime()) {
                 timer("scanNode").record(
-                        () -> delegate.scanNode(policy, nodeName, namespace, setName, callback, binNames)
+                        () -> delegate.scanNode(policy, nodeName, namespace, setName, meteredCallback, binNames)
                 );
                 return;
             }
-            delegate.scanNode(policy, nodeName, namespace, setName, callback, binNames);
+            delegate.scanNode(policy, nodeName, namespace, setName, meteredCallback, binNames);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("scanNode", t);
             throw t;
+        } finally {
+            MeteredStreams.finish(sample, scanSample);
         }
     }
 
@@ -886,17 +1022,22 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
     public void scanNode(ScanPolicy policy, Node node, String namespace, String setName, ScanCallback callback,
                          String... binNames) throws AerospikeException {
         countMethodCalls("scanNode");
+        StreamSample sample = streamSample("scanNode");
+        ScanSample scanSample = nodeScanSample(node != null ? node.getName() : null, sample);
+        ScanCallback meteredCallback = MeteredStreams.wrapScan(callback, sample, scanSample);
         try {
             if (micrometerPolicy.isMeterMethodTime()) {
                 timer("scanNode").record(
-                        () -> delegate.scanNode(policy, node, namespace, setName, callback, binNames)
+                        () -> delegate.scanNode(policy, node, namespace, setName, meteredCallback, binNames)
                 );
                 return;
             }
-            delegate.scanNode(policy, node, namespace, setName, callback, binNames);
+            delegate.scanNode(policy, node, namespace, setName, meteredCallback, binNames);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("scanNode", t);
             throw t;
+        } finally {
+            MeteredStreams.finish(sample, scanSample);
         }
     }
 
@@ -904,17 +1045,22 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
     public void scanPartitions(ScanPolicy policy, PartitionFilter partitionFilter, String namespace, String setName,
                                ScanCallback callback, String... binNames) throws AerospikeException {
         countMethodCalls("scanPartitions");
+        StreamSample sample = streamSample("scanPartitions");
+        ScanSample scanSample = partitionScanSample(partitionFilter, sample);
+        ScanCallback meteredCallback = MeteredStreams.wrapScan(callback, sample, scanSample);
         try {
             if (micrometerPolicy.isMeterMethodTime()) {
                 timer("scanPartitions").record(
-                        () -> delegate.scanPartitions(policy, partitionFilter, namespace, setName, callback, binNames)
+                        () -> delegate.scanPartitions(policy, partitionFilter, namespace, setName, meteredCallback, binNames)
                 );
                 return;
             }
-            delegate.scanPartitions(policy, partitionFilter, namespace, setName, callback, binNames);
+            delegate.scanPartitions(policy, partitionFilter, namespace, setName, meteredCallback, binNames);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("scanPartitions", t);
             throw t;
+        } finally {
+            MeteredStreams.finish(sample, scanSample);
         }
     }
 
@@ -924,9 +1070,10 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
                                String... binNames) throws AerospikeException {
         countMethodCalls("scanPartitions");
         try {
-            delegate.scanPartitions(eventLoop, listener, policy, partitionFilter, namespace, setName, binNames);
+            delegate.scanPartitions(eventLoop, MeteredListeners.wrap(listener, listenerMeters("scanPartitions")),
+                    policy, partitionFilter, namespace, setName, binNames);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("scanPartitions", t);
             throw t;
         }
     }
@@ -938,7 +1085,7 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
         try {
             return delegate.register(policy, clientPath, serverPath, language);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("register", t);
             throw t;
         }
     }
@@ -950,7 +1097,7 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
         try {
             return delegate.register(policy, resourceLoader, resourcePath, serverPath, language);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("register", t);
             throw t;
         }
     }
@@ -962,7 +1109,7 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
         try {
             return delegate.registerUdfString(policy, code, serverPath, language);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("registerUdfString", t);
             throw t;
         }
     }
@@ -979,7 +1126,7 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
             }
             delegate.removeUdf(policy, serverPath);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("removeUdf", t);
             throw t;
         }
     }
@@ -987,16 +1134,17 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
     @Override
     public Object execute(WritePolicy policy, Key key, String packageName, String functionName,
                           Value... args) throws AerospikeException {
-        countMethodCalls("execute");
+        MethodMeters meters = meters("execute", policy, key);
+        countMethodCalls(meters);
         try {
             if (micrometerPolicy.isMeterMethodTime()) {
-                return timer("execute").record(
+                return meters.timer().record(
                         () -> delegate.execute(policy, key, packageName, functionName, args)
                 );
             }
             return delegate.execute(policy, key, packageName, functionName, args);
         } catch (Throwable t) {
-            countErrors();
+            countErrors(meters, t);
             throw t;
         }
     }
@@ -1004,11 +1152,13 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
     @Override
     public void execute(EventLoop eventLoop, ExecuteListener listener, WritePolicy policy, Key key,
                         String packageName, String functionName, Value... functionArgs) throws AerospikeException {
-        countMethodCalls("execute");
+        MethodMeters meters = meters("execute", policy, key);
+        countMethodCalls(meters);
         try {
-            delegate.execute(eventLoop, listener, policy, key, packageName, functionName, functionArgs);
+            delegate.execute(eventLoop, MeteredListeners.wrap(listener, listenerMeters(meters)),
+                    policy, key, packageName, functionName, functionArgs);
         } catch (Throwable t) {
-            countErrors();
+            countErrors(meters, t);
             throw t;
         }
     }
@@ -1016,16 +1166,22 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
     @Override
     public BatchResults execute(BatchPolicy batchPolicy, BatchUDFPolicy udfPolicy, Key[] keys,
                                 String packageName, String functionName, Value... functionArgs) throws AerospikeException {
-        countMethodCalls("execute");
-        try {
-            if (micrometerPolicy.isMeterMethodTime()) {
-                return timer("execute").record(
-                        () -> delegate.execute(batchPolicy, udfPolicy, keys, packageName, functionName, functionArgs)
-                );
+        MethodMeters meters = meters("execute");
+        countMethodCalls(meters);
+        BatchMeters batchMeters = batchMeters(meters);
+        long startTime = batchMeters != null ? batchMeters.start() : 0;
+        try {
+            BatchResults result = micrometerPolicy.isMeterMethodTime()
+                    ? meters.timer().record(() ->
+                    delegate.execute(batchPolicy, udfPolicy, keys, packageName, functionName, functionArgs))
+                    : delegate.execute(batchPolicy, udfPolicy, keys, packageName, functionName, functionArgs);
+            if (batchMeters != null) {
+                batchMeters.record(startTime, keys.length);
+                batchMeters.recordResults(result.records);
             }
-            return delegate.execute(batchPolicy, udfPolicy, keys, packageName, functionName, functionArgs);
+            return result;
         } catch (Throwable t) {
-            countErrors();
+            countErrors(meters, t);
             throw t;
         }
     }
@@ -1036,9 +1192,10 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
                         Value... functionArgs) throws AerospikeException {
         countMethodCalls("execute");
         try {
-            delegate.execute(eventLoop, listener, batchPolicy, udfPolicy, keys, packageName, functionName, functionArgs);
+            delegate.execute(eventLoop, MeteredListeners.wrap(listener, listenerMeters("execute")),
+                    batchPolicy, udfPolicy, keys, packageName, functionName, functionArgs);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("execute", t);
             throw t;
         }
     }
@@ -1049,9 +1206,10 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
                         Value... functionArgs) throws AerospikeException {
         countMethodCalls("execute");
         try {
-            delegate.execute(eventLoop, listener, batchPolicy, udfPolicy, keys, packageName, functionName, functionArgs);
+            delegate.execute(eventLoop, MeteredListeners.wrap(listener, listenerMeters("execute")),
+                    batchPolicy, udfPolicy, keys, packageName, functionName, functionArgs);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("execute", t);
             throw t;
         }
     }
@@ -1068,7 +1226,7 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
             }
             return delegate.execute(policy, statement, packageName, functionName, functionArgs);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("execute", t);
             throw t;
         }
     }
@@ -1084,7 +1242,7 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
             }
             return delegate.execute(policy, statement, operations);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("execute", t);
             throw t;
         }
     }
@@ -1100,7 +1258,7 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
             }
             return delegate.query(policy, statement);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("query", t);
             throw t;
         }
     }
@@ -1110,9 +1268,9 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
                       Statement statement) throws AerospikeException {
         countMethodCalls("query");
         try {
-            delegate.query(eventLoop, listener, policy, statement);
+            delegate.query(eventLoop, MeteredListeners.wrap(listener, listenerMeters("query")), policy, statement);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("query", t);
             throw t;
         }
     }
@@ -1120,17 +1278,21 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
     @Override
     public void query(QueryPolicy policy, Statement statement, QueryListener listener) throws AerospikeException {
         countMethodCalls("query");
+        StreamSample sample = streamSample("query");
+        QueryListener meteredListener = MeteredStreams.wrapQuery(listener, sample);
         try {
             if (micrometerPolicy.isMeterMethodTime()) {
                 timer("query").record(
-                        () -> delegate.query(policy, statement, listener)
+                        () -> delegate.query(policy, statement, meteredListener)
                 );
                 return;
             }
-            delegate.query(policy, statement, listener);
+            delegate.query(policy, statement, meteredListener);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("query", t);
             throw t;
+        } finally {
+            MeteredStreams.finish(sample);
         }
     }
 
@@ -1138,17 +1300,21 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
     public void query(QueryPolicy policy, Statement statement, PartitionFilter partitionFilter,
                       QueryListener listener) throws AerospikeException {
         countMethodCalls("query");
+        StreamSample sample = streamSample("query");
+        QueryListener meteredListener = MeteredStreams.wrapQuery(listener, sample);
         try {
             if (micrometerPolicy.isMeterMethodTime()) {
                 timer("query").record(
-                        () -> delegate.query(policy, statement, partitionFilter, listener)
+                        () -> delegate.query(policy, statement, partitionFilter, meteredListener)
                 );
                 return;
             }
-            delegate.query(policy, statement, partitionFilter, listener);
+            delegate.query(policy, statement, partitionFilter, meteredListener);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("query", t);
             throw t;
+        } finally {
+            MeteredStreams.finish(sample);
         }
     }
 
@@ -1163,7 +1329,7 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
             }
             return delegate.queryNode(policy, statement, node);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("queryNode", t);
             throw t;
         }
     }
@@ -1180,7 +1346,7 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
             }
             return delegate.queryPartitions(policy, statement, partitionFilter);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("queryPartitions", t);
             throw t;
         }
     }
@@ -1190,9 +1356,10 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
                                 Statement statement, PartitionFilter partitionFilter) throws AerospikeException {
         countMethodCalls("queryPartitions");
         try {
-            delegate.queryPartitions(eventLoop, listener, policy, statement, partitionFilter);
+            delegate.queryPartitions(eventLoop, MeteredListeners.wrap(listener, listenerMeters("queryPartitions")),
+                    policy, statement, partitionFilter);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("queryPartitions", t);
             throw t;
         }
     }
@@ -1209,7 +1376,7 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
             }
             return delegate.queryAggregate(policy, statement, packageName, functionName, functionArgs);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("queryAggregate", t);
             throw t;
         }
     }
@@ -1225,7 +1392,7 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
             }
             return delegate.queryAggregate(policy, statement);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("queryAggregate", t);
             throw t;
         }
     }
@@ -1241,11 +1408,60 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
             }
             return delegate.queryAggregateNode(policy, statement, node);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("queryAggregateNode", t);
             throw t;
         }
     }
 
+    /**
+     * Executes the query like {@link #query(QueryPolicy, Statement)}, returning a record set that
+     * also reports the stream metrics when it is exhausted or closed.
+     */
+    public MeteredRecordSet queryMetered(QueryPolicy policy, Statement statement) throws AerospikeException {
+        StreamSample sample = streamSample("query");
+        return new MeteredRecordSet(query(policy, statement), sample);
+    }
+
+    /**
+     * Executes the query like {@link #queryNode(QueryPolicy, Statement, Node)}, returning a record set
+     * that also reports the stream metrics when it is exhausted or closed.
+     */
+    public MeteredRecordSet queryNodeMetered(QueryPolicy policy, Statement statement,
+                                             Node node) throws AerospikeException {
+        StreamSample sample = streamSample("queryNode");
+        return new MeteredRecordSet(queryNode(policy, statement, node), sample);
+    }
+
+    /**
+     * Executes the query like {@link #queryPartitions(QueryPolicy, Statement, PartitionFilter)}, returning
+     * a record set that also reports the stream metrics when it is exhausted or closed.
+     */
+    public MeteredRecordSet queryPartitionsMetered(QueryPolicy policy, Statement statement,
+                                                   PartitionFilter partitionFilter) throws AerospikeException {
+        StreamSample sample = streamSample("queryPartitions");
+        return new MeteredRecordSet(queryPartitions(policy, statement, partitionFilter), sample);
+    }
+
+    /**
+     * Executes the aggregation query like {@link #queryAggregate(QueryPolicy, Statement, String, String, Value...)},
+     * returning a result set that also reports the stream metrics when it is exhausted or closed.
+     */
+    public MeteredResultSet queryAggregateMetered(QueryPolicy policy, Statement statement, String packageName,
+                                                  String functionName, Value... functionArgs) throws AerospikeException {
+        StreamSample sample = streamSample("queryAggregate");
+        ResultSet resultSet = queryAggregate(policy, statement, packageName, functionName, functionArgs);
+        return new MeteredResultSet(resultSet, sample);
+    }
+
+    /**
+     * Executes the aggregation query like {@link #queryAggregate(QueryPolicy, Statement)}, returning
+     * a result set that also reports the stream metrics when it is exhausted or closed.
+     */
+    public MeteredResultSet queryAggregateMetered(QueryPolicy policy, Statement statement) throws AerospikeException {
+        StreamSample sample = streamSample("queryAggregate");
+        return new MeteredResultSet(queryAggregate(policy, statement), sample);
+    }
+
     @Override
     public IndexTask createIndex(Policy policy, String namespace, String setName, String indexName, String binName,
                                  IndexType indexType) throws AerospikeException {
@@ -1258,7 +1474,7 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
             }
             return delegate.createIndex(policy, namespace, setName, indexName, binName, indexType);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("createIndex", t);
             throw t;
         }
     }
@@ -1275,7 +1491,7 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
             }
             return delegate.createIndex(policy, namespace, setName, indexName, binName, indexType, indexCollectionType);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("createIndex", t);
             throw t;
         }
     }
@@ -1286,9 +1502,10 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
                             IndexCollectionType indexCollectionType) throws AerospikeException {
         countMethodCalls("createIndex");
         try {
-            delegate.createIndex(eventLoop, listener, policy, namespace, setName, indexName, binName, indexType, indexCollectionType);
+            delegate.createIndex(eventLoop, MeteredListeners.wrap(listener, listenerMeters("createIndex")),
+                    policy, namespace, setName, indexName, binName, indexType, indexCollectionType);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("createIndex", t);
             throw t;
         }
     }
@@ -1305,7 +1522,7 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
             }
             return delegate.dropIndex(policy, namespace, setName, indexName);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("dropIndex", t);
             throw t;
         }
     }
@@ -1315,9 +1532,10 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
                           String setName, String indexName) throws AerospikeException {
         countMethodCalls("dropIndex");
         try {
-            delegate.dropIndex(eventLoop, listener, policy, namespace, setName, indexName);
+            delegate.dropIndex(eventLoop, MeteredListeners.wrap(listener, listenerMeters("dropIndex")),
+                    policy, namespace, setName, indexName);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("dropIndex", t);
             throw t;
         }
     }
@@ -1327,9 +1545,9 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
                      String... commands) throws AerospikeException {
         countMethodCalls("info");
         try {
-            delegate.info(eventLoop, listener, policy, node, commands);
+            delegate.info(eventLoop, MeteredListeners.wrap(listener, listenerMeters("info")), policy, node, commands);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("info", t);
             throw t;
         }
     }
@@ -1347,7 +1565,7 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
             }
             delegate.setXDRFilter(policy, datacenter, namespace, filter);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("setXDRFilter", t);
             throw t;
         }
     }
@@ -1358,7 +1576,7 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
         try {
             delegate.createUser(policy, user, password, roles);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("createUser", t);
             throw t;
         }
     }
@@ -1369,7 +1587,7 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
         try {
             delegate.dropUser(policy, user);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("dropUser", t);
             throw t;
         }
     }
@@ -1380,7 +1598,7 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
         try {
             delegate.changePassword(policy, user, password);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("changePassword", t);
             throw t;
         }
     }
@@ -1391,7 +1609,7 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
         try {
             delegate.grantRoles(policy, user, roles);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("grantRoles", t);
             throw t;
         }
     }
@@ -1402,7 +1620,7 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
         try {
             delegate.revokeRoles(policy, user, roles);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("revokeRoles", t);
             throw t;
         }
     }
@@ -1413,7 +1631,7 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
         try {
             delegate.createRole(policy, roleName, privileges);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("createRole", t);
             throw t;
         }
     }
@@ -1425,7 +1643,7 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
         try {
             delegate.createRole(policy, roleName, privileges, whitelist);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("createRole", t);
             throw t;
         }
     }
@@ -1437,7 +1655,7 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
         try {
             delegate.createRole(policy, roleName, privileges, whitelist, readQuota, writeQuota);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("createRole", t);
             throw t;
         }
     }
@@ -1448,7 +1666,7 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
         try {
             delegate.dropRole(policy, roleName);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("dropRole", t);
             throw t;
         }
     }
@@ -1459,7 +1677,7 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
         try {
             delegate.grantPrivileges(policy, roleName, privileges);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("grantPrivileges", t);
             throw t;
         }
     }
@@ -1470,7 +1688,7 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
         try {
             delegate.revokePrivileges(policy, roleName, privileges);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("revokePrivileges", t);
             throw t;
         }
     }
@@ -1481,7 +1699,7 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
         try {
             delegate.setWhitelist(policy, roleName, whitelist);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("setWhitelist", t);
             throw t;
         }
     }
@@ -1492,7 +1710,7 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
         try {
             delegate.setQuotas(policy, roleName, readQuota, writeQuota);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("setQuotas", t);
             throw t;
         }
     }
@@ -1503,7 +1721,7 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
         try {
             return delegate.queryUser(policy, user);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("queryUser", t);
             throw t;
         }
     }
@@ -1514,7 +1732,7 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
         try {
             return delegate.queryUsers(policy);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("queryUsers", t);
             throw t;
         }
     }
@@ -1525,7 +1743,7 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
         try {
             return delegate.queryRole(policy, roleName);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("queryRole", t);
             throw t;
         }
     }
@@ -1536,7 +1754,7 @@ public class AerospikeClientMicrometer implements IAerospikeClient {
         try {
             return delegate.queryRoles(policy);
         } catch (Throwable t) {
-            countErrors();
+            countErrors("queryRoles", t);
             throw t;
         }
     }
@@ -0,0 +1,108 @@
+package io.github.reugn.micrometer.aerospike.client;
+
+import com.aerospike.client.BatchRecord;
+import com.aerospike.client.Record;
+import com.aerospike.client.ResultCode;
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batch size, per key latency and per record outcome meters of a batch client method.
+ */
+final class BatchMeters {
+
+    private final Clock clock;
+    private final DistributionSummary size;
+    private final Timer keyTime;
+    private final ResultCodeCounters results;
+
+    BatchMeters(String methodName, Tags tags, MeterRegistry registry) {
+        String prefix = "client." + methodName + ".batch";
+        this.clock = registry.config().clock();
+        this.size = DistributionSummary.builder(prefix + ".size")
+                .tags(tags)
+                .description("Number of keys per batch")
+                .baseUnit("keys")
+                .register(registry);
+        this.keyTime = Timer.builder(prefix + ".key.time")
+                .tags(tags)
+                .description("Batch latency amortized over the keys of the batch")
+                .register(registry);
+        this.results = new ResultCodeCounters(prefix + ".results", tags, registry);
+    }
+
+    long start() {
+        return clock.monotonicTime();
+    }
+
+    void record(long startTime, int keys) {
+        size.record(keys);
+        if (keys > 0) {
+            keyTime.record((clock.monotonicTime() - startTime) / keys, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    void recordResults(List<? extends BatchRecord> records) {
+        if (records == null) {
+            return;
+        }
+        long ok = 0;
+        for (BatchRecord record : records) {
+            if (record.resultCode == ResultCode.OK) {
+                ok++;
+            } else {
+                results.counter(record.resultCode).increment();
+            }
+        }
+        recordOk(ok);
+    }
+
+    void recordResults(BatchRecord[] records) {
+        if (records == null) {
+            return;
+        }
+        long ok = 0;
+        for (BatchRecord record : records) {
+            if (record.resultCode == ResultCode.OK) {
+                ok++;
+            } else {
+                results.counter(record.resultCode).increment();
+            }
+        }
+        recordOk(ok);
+    }
+
+    /**
+     * Records the outcome of a batch read by keys, where a missing record is returned as {@code null}.
+     */
+    void recordResults(Record[] records) {
+        if (records == null) {
+            return;
+        }
+        long ok = 0;
+        long notFound = 0;
+        for (Record record : records) {
+            if (record != null) {
+                ok++;
+            } else {
+                notFound++;
+            }
+        }
+        recordOk(ok);
+        if (notFound > 0) {
+            results.counter(ResultCode.KEY_NOT_FOUND_ERROR).increment(notFound);
+        }
+    }
+
+    private void recordOk(long ok) {
+        if (ok > 0) {
+            results.counter(ResultCode.OK).increment(ok);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package io.github.reugn.micrometer.aerospike.client;
+
+import com.aerospike.client.AerospikeException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * Error counters of a client method, classified by {@link AerospikeException#getResultCode()}
+ * and {@link AerospikeException#getInDoubt()}.
+ */
+final class ErrorMeters {
+
+    private static final String NAME = "client.error.count";
+
+    private final Tags tags;
+    private final MeterRegistry registry;
+    private final ResultCodeCounters errors;
+    private final ResultCodeCounters inDoubtErrors;
+    private volatile Counter unknownErrors;
+
+    ErrorMeters(String methodName, Tags tags, MeterRegistry registry) {
+        this.tags = tags.and("method", methodName);
+        this.registry = registry;
+        this.errors = new ResultCodeCounters(NAME, this.tags.and("in_doubt", "false"), registry);
+        this.inDoubtErrors = new ResultCodeCounters(NAME, this.tags.and("in_doubt", "true"), registry);
+    }
+
+    void record(Throwable t) {
+        if (t instanceof AerospikeException) {
+            AerospikeException e = (AerospikeException) t;
+            (e.getInDoubt() ? inDoubtErrors : errors).counter(e.getResultCode()).increment();
+            return;
+        }
+        Counter counter = unknownErrors;
+        if (counter == null) {
+            counter = Counter.builder(NAME)
+                    .tags(tags)
+                    .tag("in_doubt", "false")
+                    .tag("result_code", "unknown")
+                    .register(registry);
+            unknownErrors = counter;
+        }
+        counter.increment();
+    }
+}
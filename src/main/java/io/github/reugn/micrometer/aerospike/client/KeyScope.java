@@ -0,0 +1,30 @@
+package io.github.reugn.micrometer.aerospike.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A tag set shared by the method meters of the commands it applies to.
+ */
+final class KeyScope {
+
+    private final MeterRegistry registry;
+    private final Tags tags;
+    private final ConcurrentMap<String, MethodMeters> methodMeters = new ConcurrentHashMap<>();
+
+    KeyScope(MeterRegistry registry, Tags tags) {
+        this.registry = registry;
+        this.tags = tags;
+    }
+
+    MethodMeters meters(String methodName) {
+        MethodMeters meters = methodMeters.get(methodName);
+        if (meters == null) {
+            meters = methodMeters.computeIfAbsent(methodName, name -> new MethodMeters(name, tags, registry));
+        }
+        return meters;
+    }
+}
@@ -0,0 +1,147 @@
+package io.github.reugn.micrometer.aerospike.client;
+
+import com.aerospike.client.Key;
+import com.aerospike.client.policy.Policy;
+import com.aerospike.client.policy.ReadModeAP;
+import com.aerospike.client.policy.Replica;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Resolves the {@link KeyScope} of a command from its key and policy.
+ * <p>
+ * Scopes are cached per (namespace, set) pair and policy variant, so a lookup does not allocate.
+ * The number of (namespace, set) pairs is capped; keys beyond the cap share the {@code other} scope.
+ */
+final class KeyScopes {
+
+    static final String NONE = "none";
+    static final String OTHER = "other";
+    static final String DEFAULT = "default";
+
+    private static final Replica[] REPLICAS = Replica.values();
+    private static final ReadModeAP[] READ_MODES = ReadModeAP.values();
+    private static final int POLICY_VARIANTS = 1 + REPLICAS.length * READ_MODES.length;
+
+    private final MeterRegistry registry;
+    private final boolean tagKeys;
+    private final boolean tagPolicies;
+    private final int maxKeyTags;
+
+    private final ConcurrentMap<String, ConcurrentMap<String, SetScopes>> namespaces = new ConcurrentHashMap<>();
+    private final AtomicInteger keyTagCount = new AtomicInteger();
+    private final SetScopes unkeyed;
+    private final SetScopes other;
+    private final KeyScope none;
+
+    KeyScopes(MeterRegistry registry, MicrometerPolicy micrometerPolicy) {
+        this.registry = registry;
+        this.tagKeys = micrometerPolicy.isTagKeys();
+        this.tagPolicies = micrometerPolicy.isTagPolicies();
+        this.maxKeyTags = micrometerPolicy.getMaxKeyTags();
+        this.unkeyed = new SetScopes(Tags.empty());
+        this.other = new SetScopes(keyTags(OTHER, OTHER));
+        Tags noneTags = tagKeys ? keyTags(NONE, NONE) : Tags.empty();
+        this.none = new KeyScope(registry, tagPolicies ? policyTags(noneTags, NONE, NONE) : noneTags);
+    }
+
+    /**
+     * Returns the scope of the commands that do not target a single key.
+     */
+    KeyScope none() {
+        return none;
+    }
+
+    KeyScope scope(Policy policy, Key key) {
+        if (!tagKeys) {
+            return unkeyed.variant(policy);
+        }
+        return key != null ? setScopes(key).variant(policy) : none;
+    }
+
+    private SetScopes setScopes(Key key) {
+        String setName = key.setName != null ? key.setName : "";
+        ConcurrentMap<String, SetScopes> sets = namespaces.get(key.namespace);
+        if (sets != null) {
+            SetScopes setScopes = sets.get(setName);
+            if (setScopes != null) {
+                return setScopes;
+            }
+        }
+        return register(key.namespace, setName);
+    }
+
+    private SetScopes register(String namespace, String setName) {
+        if (keyTagCount.get() >= maxKeyTags) {
+            return other;
+        }
+        ConcurrentMap<String, SetScopes> sets = namespaces.computeIfAbsent(namespace, ns -> new ConcurrentHashMap<>());
+        SetScopes setScopes = sets.computeIfAbsent(setName, name -> {
+            // reserve the slot first, so concurrent registrations cannot exceed the cap
+            if (keyTagCount.incrementAndGet() > maxKeyTags) {
+                keyTagCount.decrementAndGet();
+                return null;
+            }
+            return new SetScopes(keyTags(namespace, name.isEmpty() ? NONE : name));
+        });
+        return setScopes != null ? setScopes : other;
+    }
+
+    private static Tags keyTags(String namespace, String setName) {
+        return Tags.of("namespace", namespace, "set", setName);
+    }
+
+    private static Tags policyTags(Tags tags, String replica, String readMode) {
+        return tags.and("replica", replica, "read_mode", readMode);
+    }
+
+    private static String tagValue(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * The scopes of a single (namespace, set) pair, one per policy variant.
+     */
+    private final class SetScopes {
+        private final Tags tags;
+        private final AtomicReferenceArray<KeyScope> variants;
+
+        SetScopes(Tags tags) {
+            this.tags = tags;
+            this.variants = new AtomicReferenceArray<>(tagPolicies ? POLICY_VARIANTS : 1);
+        }
+
+        KeyScope variant(Policy policy) {
+            int index = variantIndex(policy);
+            KeyScope scope = variants.get(index);
+            if (scope == null) {
+                variants.compareAndSet(index, null, new KeyScope(registry, variantTags(policy, index)));
+                scope = variants.get(index);
+            }
+            return scope;
+        }
+
+        private int variantIndex(Policy policy) {
+            if (!tagPolicies || policy == null || policy.replica == null || policy.readModeAP == null) {
+                return 0;
+            }
+            return 1 + policy.replica.ordinal() * READ_MODES.length + policy.readModeAP.ordinal();
+        }
+
+        private Tags variantTags(Policy policy, int index) {
+            if (!tagPolicies) {
+                return tags;
+            }
+            if (index == 0) {
+                return policyTags(tags, DEFAULT, DEFAULT);
+            }
+            return policyTags(tags, tagValue(policy.replica), tagValue(policy.readModeAP));
+        }
+    }
+}
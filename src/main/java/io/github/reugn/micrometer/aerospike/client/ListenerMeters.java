@@ -0,0 +1,41 @@
+package io.github.reugn.micrometer.aerospike.client;
+
+import com.aerospike.client.AerospikeException;
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The meters an asynchronous listener reports to once the command completes.
+ * Either of the meters may be absent, depending on the {@link MicrometerPolicy}.
+ */
+final class ListenerMeters {
+
+    private final Clock clock;
+    private final Timer timer;
+    private final ErrorMeters errors;
+
+    ListenerMeters(Clock clock, Timer timer, ErrorMeters errors) {
+        this.clock = clock;
+        this.timer = timer;
+        this.errors = errors;
+    }
+
+    long start() {
+        return timer != null ? clock.monotonicTime() : 0L;
+    }
+
+    void success(long startTime) {
+        if (timer != null) {
+            timer.record(clock.monotonicTime() - startTime, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    void failure(long startTime, AerospikeException e) {
+        success(startTime);
+        if (errors != null) {
+            errors.record(e);
+        }
+    }
+}
@@ -0,0 +1,463 @@
+package io.github.reugn.micrometer.aerospike.client;
+
+import com.aerospike.client.AerospikeException;
+import com.aerospike.client.BatchRead;
+import com.aerospike.client.BatchRecord;
+import com.aerospike.client.Key;
+import com.aerospike.client.Record;
+import com.aerospike.client.async.AsyncIndexTask;
+import com.aerospike.client.listener.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Listener wrappers to meter the asynchronous (event loop) client commands.
+ * The timer starts when the command is submitted and stops in {@code onSuccess}/{@code onFailure},
+ * before the user listener is notified.
+ * <p>
+ * A wrapper is only created when there is something to meter; otherwise the listener is returned as is.
+ */
+final class MeteredListeners {
+
+    private MeteredListeners() {
+    }
+
+    private abstract static class MeteredListener {
+        private final ListenerMeters meters;
+        private final long startTime;
+
+        MeteredListener(ListenerMeters meters) {
+            this.meters = meters;
+            this.startTime = meters.start();
+        }
+
+        final void success() {
+            meters.success(startTime);
+        }
+
+        final void failure(AerospikeException exception) {
+            meters.failure(startTime, exception);
+        }
+    }
+
+    static WriteListener wrap(WriteListener listener, ListenerMeters meters) {
+        return listener == null || meters == null ? listener : new MeteredWriteListener(listener, meters);
+    }
+
+    static RecordListener wrap(RecordListener listener, ListenerMeters meters) {
+        return listener == null || meters == null ? listener : new MeteredRecordListener(listener, meters);
+    }
+
+    static DeleteListener wrap(DeleteListener listener, ListenerMeters meters) {
+        return listener == null || meters == null ? listener : new MeteredDeleteListener(listener, meters);
+    }
+
+    static ExistsListener wrap(ExistsListener listener, ListenerMeters meters) {
+        return listener == null || meters == null ? listener : new MeteredExistsListener(listener, meters);
+    }
+
+    static ExistsArrayListener wrap(ExistsArrayListener listener, ListenerMeters meters) {
+        return listener == null || meters == null ? listener : new MeteredExistsArrayListener(listener, meters);
+    }
+
+    static ExistsSequenceListener wrap(ExistsSequenceListener listener, ListenerMeters meters) {
+        return listener == null || meters == null ? listener : new MeteredExistsSequenceListener(listener, meters);
+    }
+
+    static RecordArrayListener wrap(RecordArrayListener listener, ListenerMeters meters) {
+        return listener == null || meters == null ? listener : new MeteredRecordArrayListener(listener, meters);
+    }
+
+    static RecordSequenceListener wrap(RecordSequenceListener listener, ListenerMeters meters) {
+        return listener == null || meters == null ? listener : new MeteredRecordSequenceListener(listener, meters);
+    }
+
+    static BatchListListener wrap(BatchListListener listener, ListenerMeters meters) {
+        return listener == null || meters == null ? listener : new MeteredBatchListListener(listener, meters);
+    }
+
+    static BatchSequenceListener wrap(BatchSequenceListener listener, ListenerMeters meters) {
+        return listener == null || meters == null ? listener : new MeteredBatchSequenceListener(listener, meters);
+    }
+
+    static BatchOperateListListener wrap(BatchOperateListListener listener, ListenerMeters meters) {
+        return listener == null || meters == null ? listener : new MeteredBatchOperateListListener(listener, meters);
+    }
+
+    static BatchRecordArrayListener wrap(BatchRecordArrayListener listener, ListenerMeters meters) {
+        return listener == null || meters == null ? listener : new MeteredBatchRecordArrayListener(listener, meters);
+    }
+
+    static BatchRecordSequenceListener wrap(BatchRecordSequenceListener listener, ListenerMeters meters) {
+        return listener == null || meters == null ? listener : new MeteredBatchRecordSequenceListener(listener, meters);
+    }
+
+    static ExecuteListener wrap(ExecuteListener listener, ListenerMeters meters) {
+        return listener == null || meters == null ? listener : new MeteredExecuteListener(listener, meters);
+    }
+
+    static IndexListener wrap(IndexListener listener, ListenerMeters meters) {
+        return listener == null || meters == null ? listener : new MeteredIndexListener(listener, meters);
+    }
+
+    static InfoListener wrap(InfoListener listener, ListenerMeters meters) {
+        return listener == null || meters == null ? listener : new MeteredInfoListener(listener, meters);
+    }
+
+    private static final class MeteredWriteListener extends MeteredListener implements WriteListener {
+        private final WriteListener listener;
+
+        MeteredWriteListener(WriteListener listener, ListenerMeters meters) {
+            super(meters);
+            this.listener = listener;
+        }
+
+        @Override
+        public void onSuccess(Key key) {
+            success();
+            listener.onSuccess(key);
+        }
+
+        @Override
+        public void onFailure(AerospikeException exception) {
+            failure(exception);
+            listener.onFailure(exception);
+        }
+    }
+
+    private static final class MeteredRecordListener extends MeteredListener implements RecordListener {
+        private final RecordListener listener;
+
+        MeteredRecordListener(RecordListener listener, ListenerMeters meters) {
+            super(meters);
+            this.listener = listener;
+        }
+
+        @Override
+        public void onSuccess(Key key, Record record) {
+            success();
+            listener.onSuccess(key, record);
+        }
+
+        @Override
+        public void onFailure(AerospikeException exception) {
+            failure(exception);
+            listener.onFailure(exception);
+        }
+    }
+
+    private static final class MeteredDeleteListener extends MeteredListener implements DeleteListener {
+        private final DeleteListener listener;
+
+        MeteredDeleteListener(DeleteListener listener, ListenerMeters meters) {
+            super(meters);
+            this.listener = listener;
+        }
+
+        @Override
+        public void onSuccess(Key key, boolean existed) {
+            success();
+            listener.onSuccess(key, existed);
+        }
+
+        @Override
+        public void onFailure(AerospikeException exception) {
+            failure(exception);
+            listener.onFailure(exception);
+        }
+    }
+
+    private static final class MeteredExistsListener extends MeteredListener implements ExistsListener {
+        private final ExistsListener listener;
+
+        MeteredExistsListener(ExistsListener listener, ListenerMeters meters) {
+            super(meters);
+            this.listener = listener;
+        }
+
+        @Override
+        public void onSuccess(Key key, boolean exists) {
+            success();
+            listener.onSuccess(key, exists);
+        }
+
+        @Override
+        public void onFailure(AerospikeException exception) {
+            failure(exception);
+            listener.onFailure(exception);
+        }
+    }
+
+    private static final class MeteredExistsArrayListener extends MeteredListener implements ExistsArrayListener {
+        private final ExistsArrayListener listener;
+
+        MeteredExistsArrayListener(ExistsArrayListener listener, ListenerMeters meters) {
+            super(meters);
+            this.listener = listener;
+        }
+
+        @Override
+        public void onSuccess(Key[] keys, boolean[] exists) {
+            success();
+            listener.onSuccess(keys, exists);
+        }
+
+        @Override
+        public void onFailure(AerospikeException exception) {
+            failure(exception);
+            listener.onFailure(exception);
+        }
+    }
+
+    private static final class MeteredExistsSequenceListener extends MeteredListener implements ExistsSequenceListener {
+        private final ExistsSequenceListener listener;
+
+        MeteredExistsSequenceListener(ExistsSequenceListener listener, ListenerMeters meters) {
+            super(meters);
+            this.listener = listener;
+        }
+
+        @Override
+        public void onExists(Key key, boolean exists) {
+            listener.onExists(key, exists);
+        }
+
+        @Override
+        public void onSuccess() {
+            success();
+            listener.onSuccess();
+        }
+
+        @Override
+        public void onFailure(AerospikeException exception) {
+            failure(exception);
+            listener.onFailure(exception);
+        }
+    }
+
+    private static final class MeteredRecordArrayListener extends MeteredListener implements RecordArrayListener {
+        private final RecordArrayListener listener;
+
+        MeteredRecordArrayListener(RecordArrayListener listener, ListenerMeters meters) {
+            super(meters);
+            this.listener = listener;
+        }
+
+        @Override
+        public void onSuccess(Key[] keys, Record[] records) {
+            success();
+            listener.onSuccess(keys, records);
+        }
+
+        @Override
+        public void onFailure(AerospikeException exception) {
+            failure(exception);
+            listener.onFailure(exception);
+        }
+    }
+
+    private static final class MeteredRecordSequenceListener extends MeteredListener implements RecordSequenceListener {
+        private final RecordSequenceListener listener;
+
+        MeteredRecordSequenceListener(RecordSequenceListener listener, ListenerMeters meters) {
+            super(meters);
+            this.listener = listener;
+        }
+
+        @Override
+        public void onRecord(Key key, Record record) throws AerospikeException {
+            listener.onRecord(key, record);
+        }
+
+        @Override
+        public void onSuccess() {
+            success();
+            listener.onSuccess();
+        }
+
+        @Override
+        public void onFailure(AerospikeException exception) {
+            failure(exception);
+            listener.onFailure(exception);
+        }
+    }
+
+    private static final class MeteredBatchListListener extends MeteredListener implements BatchListListener {
+        private final BatchListListener listener;
+
+        MeteredBatchListListener(BatchListListener listener, ListenerMeters meters) {
+            super(meters);
+            this.listener = listener;
+        }
+
+        @Override
+        public void onSuccess(List<BatchRead> records) {
+            success();
+            listener.onSuccess(records);
+        }
+
+        @Override
+        public void onFailure(AerospikeException exception) {
+            failure(exception);
+            listener.onFailure(exception);
+        }
+    }
+
+    private static final class MeteredBatchSequenceListener extends MeteredListener implements BatchSequenceListener {
+        private final BatchSequenceListener listener;
+
+        MeteredBatchSequenceListener(BatchSequenceListener listener, ListenerMeters meters) {
+            super(meters);
+            this.listener = listener;
+        }
+
+        @Override
+        public void onRecord(BatchRead record) {
+            listener.onRecord(record);
+        }
+
+        @Override
+        public void onSuccess() {
+            success();
+            listener.onSuccess();
+        }
+
+        @Override
+        public void onFailure(AerospikeException exception) {
+            failure(exception);
+            listener.onFailure(exception);
+        }
+    }
+
+    private static final class MeteredBatchOperateListListener extends MeteredListener implements BatchOperateListListener {
+        private final BatchOperateListListener listener;
+
+        MeteredBatchOperateListListener(BatchOperateListListener listener, ListenerMeters meters) {
+            super(meters);
+            this.listener = listener;
+        }
+
+        @Override
+        public void onSuccess(List<BatchRecord> records, boolean status) {
+            success();
+            listener.onSuccess(records, status);
+        }
+
+        @Override
+        public void onFailure(AerospikeException exception) {
+            failure(exception);
+            listener.onFailure(exception);
+        }
+    }
+
+    private static final class MeteredBatchRecordArrayListener extends MeteredListener implements BatchRecordArrayListener {
+        private final BatchRecordArrayListener listener;
+
+        MeteredBatchRecordArrayListener(BatchRecordArrayListener listener, ListenerMeters meters) {
+            super(meters);
+            this.listener = listener;
+        }
+
+        @Override
+        public void onSuccess(BatchRecord[] records, boolean status) {
+            success();
+            listener.onSuccess(records, status);
+        }
+
+        @Override
+        public void onFailure(BatchRecord[] records, AerospikeException exception) {
+            failure(exception);
+            listener.onFailure(records, exception);
+        }
+    }
+
+    private static final class MeteredBatchRecordSequenceListener extends MeteredListener implements BatchRecordSequenceListener {
+        private final BatchRecordSequenceListener listener;
+
+        MeteredBatchRecordSequenceListener(BatchRecordSequenceListener listener, ListenerMeters meters) {
+            super(meters);
+            this.listener = listener;
+        }
+
+        @Override
+        public void onRecord(BatchRecord record, int index) throws AerospikeException {
+            listener.onRecord(record, index);
+        }
+
+        @Override
+        public void onSuccess() {
+            success();
+            listener.onSuccess();
+        }
+
+        @Override
+        public void onFailure(AerospikeException exception) {
+            failure(exception);
+            listener.onFailure(exception);
+        }
+    }
+
+    private static final class MeteredExecuteListener extends MeteredListener implements ExecuteListener {
+        private final ExecuteListener listener;
+
+        MeteredExecuteListener(ExecuteListener listener, ListenerMeters meters) {
+            super(meters);
+            this.listener = listener;
+        }
+
+        @Override
+        public void onSuccess(Key key, Object obj) {
+            success();
+            listener.onSuccess(key, obj);
+        }
+
+        @Override
+        public void onFailure(AerospikeException exception) {
+            failure(exception);
+            listener.onFailure(exception);
+        }
+    }
+
+    private static final class MeteredIndexListener extends MeteredListener implements IndexListener {
+        private final IndexListener listener;
+
+        MeteredIndexListener(IndexListener listener, ListenerMeters meters) {
+            super(meters);
+            this.listener = listener;
+        }
+
+        @Override
+        public void onSuccess(AsyncIndexTask indexTask) {
+            success();
+            listener.onSuccess(indexTask);
+        }
+
+        @Override
+        public void onFailure(AerospikeException exception) {
+            failure(exception);
+            listener.onFailure(exception);
+        }
+    }
+
+    private static final class MeteredInfoListener extends MeteredListener implements InfoListener {
+        private final InfoListener listener;
+
+        MeteredInfoListener(InfoListener listener, ListenerMeters meters) {
+            super(meters);
+            this.listener = listener;
+        }
+
+        @Override
+        public void onSuccess(Map<String, String> map) {
+            success();
+            listener.onSuccess(map);
+        }
+
+        @Override
+        public void onFailure(AerospikeException exception) {
+            failure(exception);
+            listener.onFailure(exception);
+        }
+    }
+}
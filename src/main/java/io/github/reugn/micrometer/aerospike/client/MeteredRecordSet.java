@@ -0,0 +1,101 @@
+package io.github.reugn.micrometer.aerospike.client;
+
+import com.aerospike.client.AerospikeException;
+import com.aerospike.client.Key;
+import com.aerospike.client.Record;
+import com.aerospike.client.query.KeyRecord;
+import com.aerospike.client.query.RecordSet;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A {@link RecordSet} view that reports the time to the first record, the total duration,
+ * the record count and the records per second once the stream is exhausted or closed.
+ * <p>
+ * {@link RecordSet} is final, so this type mirrors its API instead of extending it.
+ */
+public final class MeteredRecordSet implements Iterable<KeyRecord>, Closeable {
+
+    private final RecordSet recordSet;
+    private final StreamSample sample;
+
+    MeteredRecordSet(RecordSet recordSet, StreamSample sample) {
+        this.recordSet = recordSet;
+        this.sample = sample;
+    }
+
+    /**
+     * Retrieves the next record.
+     *
+     * @return whether a record is available
+     * @throws AerospikeException if the query failed
+     * @see RecordSet#next()
+     */
+    public boolean next() throws AerospikeException {
+        boolean hasNext;
+        try {
+            hasNext = recordSet.next();
+        } catch (RuntimeException e) {
+            finish();
+            throw e;
+        }
+        if (hasNext) {
+            if (sample != null) {
+                sample.record();
+            }
+        } else {
+            finish();
+        }
+        return hasNext;
+    }
+
+    /**
+     * Closes the underlying record set and reports the stream metrics.
+     */
+    @Override
+    public void close() {
+        recordSet.close();
+        finish();
+    }
+
+    public Key getKey() {
+        return recordSet.getKey();
+    }
+
+    public Record getRecord() {
+        return recordSet.getRecord();
+    }
+
+    @Override
+    public Iterator<KeyRecord> iterator() {
+        return new Iterator<KeyRecord>() {
+            private KeyRecord next;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null && MeteredRecordSet.this.next()) {
+                    next = new KeyRecord(getKey(), getRecord());
+                }
+                return next != null;
+            }
+
+            @Override
+            public KeyRecord next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                KeyRecord current = next;
+                next = null;
+                return current;
+            }
+        };
+    }
+
+    private void finish() {
+        if (sample != null) {
+            sample.finish();
+        }
+    }
+}
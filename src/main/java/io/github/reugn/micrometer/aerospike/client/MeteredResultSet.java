@@ -0,0 +1,94 @@
+package io.github.reugn.micrometer.aerospike.client;
+
+import com.aerospike.client.AerospikeException;
+import com.aerospike.client.query.ResultSet;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A {@link ResultSet} view that reports the time to the first result, the total duration,
+ * the result count and the results per second once the stream is exhausted or closed.
+ * <p>
+ * {@link ResultSet} is final, so this type mirrors its API instead of extending it.
+ */
+public final class MeteredResultSet implements Iterable<Object>, Closeable {
+
+    private final ResultSet resultSet;
+    private final StreamSample sample;
+
+    MeteredResultSet(ResultSet resultSet, StreamSample sample) {
+        this.resultSet = resultSet;
+        this.sample = sample;
+    }
+
+    /**
+     * Retrieves the next result.
+     *
+     * @return whether a result is available
+     * @throws AerospikeException if the aggregation query failed
+     * @see ResultSet#next()
+     */
+    public boolean next() throws AerospikeException {
+        boolean hasNext;
+        try {
+            hasNext = resultSet.next();
+        } catch (RuntimeException e) {
+            finish();
+            throw e;
+        }
+        if (hasNext) {
+            if (sample != null) {
+                sample.record();
+            }
+        } else {
+            finish();
+        }
+        return hasNext;
+    }
+
+    /**
+     * Closes the underlying result set and reports the stream metrics.
+     */
+    @Override
+    public void close() {
+        resultSet.close();
+        finish();
+    }
+
+    public Object getObject() {
+        return resultSet.getObject();
+    }
+
+    @Override
+    public Iterator<Object> iterator() {
+        return new Iterator<Object>() {
+            private Object next;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null && MeteredResultSet.this.next()) {
+                    next = getObject();
+                }
+                return next != null;
+            }
+
+            @Override
+            public Object next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Object current = next;
+                next = null;
+                return current;
+            }
+        };
+    }
+
+    private void finish() {
+        if (sample != null) {
+            sample.finish();
+        }
+    }
+}
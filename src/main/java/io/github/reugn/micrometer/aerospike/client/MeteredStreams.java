@@ -0,0 +1,58 @@
+package io.github.reugn.micrometer.aerospike.client;
+
+import com.aerospike.client.ScanCallback;
+import com.aerospike.client.query.QueryListener;
+
+/**
+ * Callback wrappers to count the records of the synchronous query and scan streams.
+ * The caller finishes the samples when the blocking command returns.
+ */
+final class MeteredStreams {
+
+    private MeteredStreams() {
+    }
+
+    static ScanCallback wrapScan(ScanCallback callback, StreamSample sample) {
+        return wrapScan(callback, sample, null);
+    }
+
+    static ScanCallback wrapScan(ScanCallback callback, StreamSample sample, ScanSample scanSample) {
+        if (callback == null || sample == null) {
+            return callback;
+        }
+        if (scanSample == null) {
+            return (key, record) -> {
+                sample.record();
+                callback.scanCallback(key, record);
+            };
+        }
+        return (key, record) -> {
+            sample.record();
+            scanSample.record(record);
+            callback.scanCallback(key, record);
+        };
+    }
+
+    static QueryListener wrapQuery(QueryListener listener, StreamSample sample) {
+        if (listener == null || sample == null) {
+            return listener;
+        }
+        return (key, record) -> {
+            sample.record();
+            listener.onRecord(key, record);
+        };
+    }
+
+    static void finish(StreamSample sample) {
+        if (sample != null) {
+            sample.finish();
+        }
+    }
+
+    static void finish(StreamSample sample, ScanSample scanSample) {
+        finish(sample);
+        if (scanSample != null) {
+            scanSample.finish();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package io.github.reugn.micrometer.aerospike.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Holds the meters of a single client method.
+ * Meters are registered on first use and reused afterwards, so an instrumented call
+ * costs a field read and an increment instead of a registry lookup.
+ */
+final class MethodMeters {
+
+    private final String methodName;
+    private final Tags tags;
+    private final MeterRegistry registry;
+
+    private volatile Counter counter;
+    private volatile Timer timer;
+    private volatile ListenerMeters listenerMeters;
+    private volatile StreamMeters streamMeters;
+    private volatile BatchMeters batchMeters;
+    private volatile ErrorMeters errorMeters;
+
+    MethodMeters(String methodName, Tags tags, MeterRegistry registry) {
+        this.methodName = methodName;
+        this.tags = tags;
+        this.registry = registry;
+    }
+
+    Counter counter() {
+        Counter c = counter;
+        if (c == null) {
+            // concurrent registration is benign, the registry returns the same meter
+            c = Counter.builder("client." + methodName + ".count").tags(tags).register(registry);
+            counter = c;
+        }
+        return c;
+    }
+
+    Timer timer() {
+        Timer t = timer;
+        if (t == null) {
+            t = Timer.builder("client." + methodName + ".time").tags(tags).register(registry);
+            timer = t;
+        }
+        return t;
+    }
+
+    ErrorMeters errorMeters() {
+        ErrorMeters meters = errorMeters;
+        if (meters == null) {
+            meters = new ErrorMeters(methodName, tags, registry);
+            errorMeters = meters;
+        }
+        return meters;
+    }
+
+    ListenerMeters listenerMeters(boolean meterTime, boolean meterErrors) {
+        ListenerMeters meters = listenerMeters;
+        if (meters == null) {
+            meters = new ListenerMeters(registry.config().clock(), meterTime ? timer() : null,
+                    meterErrors ? errorMeters() : null);
+            listenerMeters = meters;
+        }
+        return meters;
+    }
+
+    StreamMeters streamMeters() {
+        StreamMeters meters = streamMeters;
+        if (meters == null) {
+            meters = new StreamMeters(methodName, registry);
+            streamMeters = meters;
+        }
+        return meters;
+    }
+
+    BatchMeters batchMeters() {
+        BatchMeters meters = batchMeters;
+        if (meters == null) {
+            meters = new BatchMeters(methodName, tags, registry);
+            batchMeters = meters;
+        }
+        return meters;
+    }
+}
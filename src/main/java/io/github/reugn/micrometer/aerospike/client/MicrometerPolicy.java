@@ -4,12 +4,22 @@ public class MicrometerPolicy {
 
     public static final MicrometerPolicy DEFAULT = new MicrometerPolicy();
 
+    /**
+     * Default limit of distinct (namespace, set) tag pairs.
+     */
+    public static final int DEFAULT_MAX_KEY_TAGS = 100;
+
     private final boolean meterMethodCalls;
     private final boolean meterMethodTime;
     private final boolean meterErrors;
+    private final boolean meterStreams;
+    private final boolean meterBatches;
+    private final boolean tagKeys;
+    private final boolean tagPolicies;
+    private final int maxKeyTags;
 
     public MicrometerPolicy() {
-        this(true, true, true);
+        this(true, true, true, true);
     }
 
     public MicrometerPolicy(
@@ -17,9 +27,39 @@ public class MicrometerPolicy {
             boolean meterMethodTime,
             boolean meterErrors
     ) {
+        this(meterMethodCalls, meterMethodTime, meterErrors, true);
+    }
+
+    public MicrometerPolicy(
+            boolean meterMethodCalls,
+            boolean meterMethodTime,
+            boolean meterErrors,
+            boolean meterStreams
+    ) {
+        this(meterMethodCalls, meterMethodTime, meterErrors, meterStreams, true, false, false, DEFAULT_MAX_KEY_TAGS);
+    }
+
+    public MicrometerPolicy(
+            boolean meterMethodCalls,
+            boolean meterMethodTime,
+            boolean meterErrors,
+            boolean meterStreams,
+            boolean meterBatches,
+            boolean tagKeys,
+            boolean tagPolicies,
+            int maxKeyTags
+    ) {
+        if (maxKeyTags < 0) {
+            throw new IllegalArgumentException("maxKeyTags is negative");
+        }
         this.meterMethodCalls = meterMethodCalls;
         this.meterMethodTime = meterMethodTime;
         this.meterErrors = meterErrors;
+        this.meterStreams = meterStreams;
+        this.meterBatches = meterBatches;
+        this.tagKeys = tagKeys;
+        this.tagPolicies = tagPolicies;
+        this.maxKeyTags = maxKeyTags;
     }
 
     public boolean isMeterMethodCalls() {
@@ -34,10 +74,61 @@ public class MicrometerPolicy {
         return meterErrors;
     }
 
+    /**
+     * Whether to report the time to the first record, the duration and the record count
+     * of the query and scan streams.
+     */
+    public boolean isMeterStreams() {
+        return meterStreams;
+    }
+
+    /**
+     * Whether to report the batch size, the per key latency and the per record result codes
+     * of the batch commands.
+     */
+    public boolean isMeterBatches() {
+        return meterBatches;
+    }
+
+    /**
+     * Whether to tag the single key method meters with the {@code namespace} and {@code set} of the key.
+     */
+    public boolean isTagKeys() {
+        return tagKeys;
+    }
+
+    /**
+     * Whether to tag the single key method meters with the {@code replica} and {@code read_mode}
+     * of the command policy.
+     */
+    public boolean isTagPolicies() {
+        return tagPolicies;
+    }
+
+    /**
+     * The maximum number of distinct (namespace, set) pairs to tag.
+     * Keys beyond the limit are reported under the {@code other} namespace and set.
+     */
+    public int getMaxKeyTags() {
+        return maxKeyTags;
+    }
+
+    /**
+     * Whether the method meters are tagged per key or policy.
+     */
+    boolean isTagged() {
+        return tagKeys || tagPolicies;
+    }
+
     public static class Builder {
         private boolean meterMethodCalls;
         private boolean meterMethodTime;
         private boolean meterErrors;
+        private boolean meterStreams;
+        private boolean meterBatches;
+        private boolean tagKeys;
+        private boolean tagPolicies;
+        private int maxKeyTags = DEFAULT_MAX_KEY_TAGS;
 
         public Builder meterMethodCalls(boolean meterMethodCalls) {
             this.meterMethodCalls = meterMethodCalls;
@@ -54,11 +145,41 @@ public class MicrometerPolicy {
             return this;
         }
 
+        public Builder meterStreams(boolean meterStreams) {
+            this.meterStreams = meterStreams;
+            return this;
+        }
+
+        public Builder meterBatches(boolean meterBatches) {
+            this.meterBatches = meterBatches;
+            return this;
+        }
+
+        public Builder tagKeys(boolean tagKeys) {
+            this.tagKeys = tagKeys;
+            return this;
+        }
+
+        public Builder tagPolicies(boolean tagPolicies) {
+            this.tagPolicies = tagPolicies;
+            return this;
+        }
+
+        public Builder maxKeyTags(int maxKeyTags) {
+            this.maxKeyTags = maxKeyTags;
+            return this;
+        }
+
         public MicrometerPolicy build() {
             return new MicrometerPolicy(
                     meterMethodCalls,
                     meterMethodTime,
-                    meterErrors
+                    meterErrors,
+                    meterStreams,
+                    meterBatches,
+                    tagKeys,
+                    tagPolicies,
+                    maxKeyTags
             );
         }
     }
@@ -0,0 +1,52 @@
+package io.github.reugn.micrometer.aerospike.client;
+
+import com.aerospike.client.AerospikeException;
+import com.aerospike.client.Record;
+import com.aerospike.client.Value;
+
+import java.util.Map;
+
+/**
+ * Estimates the payload size of the records delivered to the client.
+ * Scalar bins are sized without allocation; only collection bins are packed to be measured.
+ */
+final class RecordSizes {
+
+    private RecordSizes() {
+    }
+
+    static long estimate(Record record) {
+        if (record == null || record.bins == null) {
+            return 0;
+        }
+        long size = 0;
+        for (Map.Entry<String, Object> bin : record.bins.entrySet()) {
+            size += bin.getKey().length() + estimate(bin.getValue());
+        }
+        return size;
+    }
+
+    private static long estimate(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof Long || value instanceof Double) {
+            return 8;
+        }
+        if (value instanceof Boolean) {
+            return 1;
+        }
+        if (value instanceof String) {
+            // exact for ASCII, which covers the common case without encoding the string
+            return ((String) value).length();
+        }
+        if (value instanceof byte[]) {
+            return ((byte[]) value).length;
+        }
+        try {
+            return Value.get(value).estimateSize();
+        } catch (AerospikeException e) {
+            return 0;
+        }
+    }
+}
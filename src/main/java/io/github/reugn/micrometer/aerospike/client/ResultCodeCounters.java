@@ -0,0 +1,80 @@
+package io.github.reugn.micrometer.aerospike.client;
+
+import com.aerospike.client.ResultCode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Counters tagged by Aerospike {@link ResultCode}, registered on first use and cached per code.
+ */
+final class ResultCodeCounters {
+
+    private static final int OFFSET = 32;
+    private static final int SIZE = 256;
+
+    private static final Map<Integer, String> NAMES = resultCodeNames();
+
+    private final String name;
+    private final Tags tags;
+    private final MeterRegistry registry;
+    private final AtomicReferenceArray<Counter> counters = new AtomicReferenceArray<>(SIZE);
+    private final ConcurrentMap<Integer, Counter> outOfRange = new ConcurrentHashMap<>();
+
+    ResultCodeCounters(String name, Tags tags, MeterRegistry registry) {
+        this.name = name;
+        this.tags = tags;
+        this.registry = registry;
+    }
+
+    Counter counter(int resultCode) {
+        int index = resultCode + OFFSET;
+        if (index < 0 || index >= SIZE) {
+            return outOfRange.computeIfAbsent(resultCode, this::register);
+        }
+        Counter counter = counters.get(index);
+        if (counter == null) {
+            counter = register(resultCode);
+            counters.set(index, counter);
+        }
+        return counter;
+    }
+
+    private Counter register(int resultCode) {
+        return Counter.builder(name)
+                .tags(tags)
+                .tag("result_code", tagValue(resultCode))
+                .register(registry);
+    }
+
+    /**
+     * Returns the lower case constant name of the result code, e.g. {@code key_not_found_error}.
+     */
+    static String tagValue(int resultCode) {
+        String name = NAMES.get(resultCode);
+        return name != null ? name : Integer.toString(resultCode);
+    }
+
+    private static Map<Integer, String> resultCodeNames() {
+        Map<Integer, String> names = new HashMap<>();
+        for (Field field : ResultCode.class.getFields()) {
+            int modifiers = field.getModifiers();
+            if (field.getType() == int.class && Modifier.isStatic(modifiers) && Modifier.isFinal(modifiers)) {
+                try {
+                    names.putIfAbsent(field.getInt(null), field.getName().toLowerCase(Locale.ROOT));
+                } catch (IllegalAccessException ignore) {
+                }
+            }
+        }
+        return names;
+    }
+}
@@ -0,0 +1,50 @@
+package io.github.reugn.micrometer.aerospike.client;
+
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput meters of the scans targeting a single node or partition range.
+ */
+final class ScanMeters {
+
+    private final Clock clock;
+    private final Counter records;
+    private final Counter bytes;
+    private final Timer duration;
+
+    /**
+     * @param scope    the scan scope, {@code node} or {@code partitions}
+     * @param tagValue the node name or the size class of the partition range
+     */
+    ScanMeters(String scope, String tagValue, MeterRegistry registry) {
+        String prefix = "client.scan." + scope;
+        this.clock = registry.config().clock();
+        this.records = Counter.builder(prefix + ".records")
+                .tag(scope, tagValue)
+                .baseUnit("records")
+                .register(registry);
+        this.bytes = Counter.builder(prefix + ".bytes")
+                .tag(scope, tagValue)
+                .description("Estimated payload size of the scanned records")
+                .baseUnit("bytes")
+                .register(registry);
+        this.duration = Timer.builder(prefix + ".time")
+                .tag(scope, tagValue)
+                .register(registry);
+    }
+
+    ScanSample start() {
+        return new ScanSample(this, clock.monotonicTime());
+    }
+
+    void record(long startTime, long recordCount, long byteCount) {
+        duration.record(clock.monotonicTime() - startTime, TimeUnit.NANOSECONDS);
+        records.increment(recordCount);
+        bytes.increment(byteCount);
+    }
+}
@@ -0,0 +1,30 @@
+package io.github.reugn.micrometer.aerospike.client;
+
+import com.aerospike.client.Record;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Accumulates the records and bytes of a single node or partition range scan.
+ */
+final class ScanSample {
+
+    private final ScanMeters meters;
+    private final long startTime;
+    private final AtomicLong records = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+
+    ScanSample(ScanMeters meters, long startTime) {
+        this.meters = meters;
+        this.startTime = startTime;
+    }
+
+    void record(Record record) {
+        records.incrementAndGet();
+        bytes.addAndGet(RecordSizes.estimate(record));
+    }
+
+    void finish() {
+        meters.record(startTime, records.get(), bytes.get());
+    }
+}
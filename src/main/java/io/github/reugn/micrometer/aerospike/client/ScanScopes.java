@@ -0,0 +1,91 @@
+package io.github.reugn.micrometer.aerospike.client;
+
+import com.aerospike.client.cluster.Node;
+import com.aerospike.client.query.PartitionFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Resolves the {@link ScanMeters} of a node or partition scan.
+ * <p>
+ * The partition scans are tagged with the size class of the scanned range, such as {@code 17-256},
+ * rather than the range itself, so there is a fixed number of series. The number of tagged nodes is
+ * capped; nodes beyond the cap share the {@code other} meters.
+ */
+final class ScanScopes {
+
+    static final String OTHER = "other";
+    static final int MAX_NODES = 256;
+
+    private static final String NODE = "node";
+    private static final String PARTITIONS = "partitions";
+
+    // the upper bounds of the partition count classes, the last one being a full scan
+    private static final int[] PARTITION_COUNTS = {1, 16, 256, Node.PARTITIONS - 1, Node.PARTITIONS};
+    private static final String[] PARTITION_TAGS = {"1", "2-16", "17-256", "257-4095", "all"};
+
+    private final MeterRegistry registry;
+    private final ConcurrentMap<String, ScanMeters> nodes = new ConcurrentHashMap<>();
+    private final AtomicInteger nodeCount = new AtomicInteger();
+    private final AtomicReferenceArray<ScanMeters> partitions = new AtomicReferenceArray<>(PARTITION_TAGS.length);
+    private volatile ScanMeters otherNodes;
+
+    ScanScopes(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    ScanMeters node(String nodeName) {
+        ScanMeters meters = nodes.get(nodeName);
+        return meters != null ? meters : register(nodeName);
+    }
+
+    ScanMeters partitions(PartitionFilter partitionFilter) {
+        int index = partitionClass(partitionFilter.getCount());
+        ScanMeters meters = partitions.get(index);
+        if (meters == null) {
+            partitions.compareAndSet(index, null, new ScanMeters(PARTITIONS, PARTITION_TAGS[index], registry));
+            meters = partitions.get(index);
+        }
+        return meters;
+    }
+
+    private static int partitionClass(int count) {
+        for (int i = 0; i < PARTITION_COUNTS.length - 1; i++) {
+            if (count <= PARTITION_COUNTS[i]) {
+                return i;
+            }
+        }
+        return PARTITION_COUNTS.length - 1;
+    }
+
+    private ScanMeters register(String nodeName) {
+        if (nodeCount.get() < MAX_NODES) {
+            ScanMeters meters = nodes.computeIfAbsent(nodeName, name -> {
+                // reserve the slot first, so concurrent registrations cannot exceed the cap
+                if (nodeCount.incrementAndGet() > MAX_NODES) {
+                    nodeCount.decrementAndGet();
+                    return null;
+                }
+                return new ScanMeters(NODE, name, registry);
+            });
+            if (meters != null) {
+                return meters;
+            }
+        }
+        ScanMeters other = otherNodes;
+        if (other == null) {
+            synchronized (this) {
+                other = otherNodes;
+                if (other == null) {
+                    other = new ScanMeters(NODE, OTHER, registry);
+                    otherNodes = other;
+                }
+            }
+        }
+        return other;
+    }
+}
@@ -0,0 +1,61 @@
+package io.github.reugn.micrometer.aerospike.client;
+
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The meters of a streaming client method (query, scan), reported once per stream.
+ */
+final class StreamMeters {
+
+    private final Clock clock;
+    private final Timer firstRecord;
+    private final Timer duration;
+    private final DistributionSummary records;
+    private final DistributionSummary rate;
+
+    StreamMeters(String methodName, MeterRegistry registry) {
+        String prefix = "client." + methodName + ".stream";
+        this.clock = registry.config().clock();
+        this.firstRecord = Timer.builder(prefix + ".first")
+                .description("Time to the first record of the stream")
+                .register(registry);
+        this.duration = Timer.builder(prefix + ".time")
+                .description("Time until the stream was exhausted or closed")
+                .register(registry);
+        this.records = DistributionSummary.builder(prefix + ".records")
+                .description("Number of records delivered by the stream")
+                .baseUnit("records")
+                .register(registry);
+        this.rate = DistributionSummary.builder(prefix + ".rate")
+                .description("Records per second delivered by the stream")
+                .baseUnit("records/s")
+                .register(registry);
+    }
+
+    StreamSample start() {
+        return new StreamSample(this, clock.monotonicTime());
+    }
+
+    long monotonicTime() {
+        return clock.monotonicTime();
+    }
+
+    void record(long startTime, long firstRecordTime, long endTime, long count) {
+        long elapsed = endTime - startTime;
+        if (count > 0) {
+            // the first record time may not be published yet if the stream was closed concurrently
+            long first = firstRecordTime != 0 ? firstRecordTime : endTime;
+            firstRecord.record(first - startTime, TimeUnit.NANOSECONDS);
+            if (elapsed > 0) {
+                rate.record(count * 1e9 / elapsed);
+            }
+        }
+        duration.record(elapsed, TimeUnit.NANOSECONDS);
+        records.record(count);
+    }
+}
@@ -0,0 +1,36 @@
+package io.github.reugn.micrometer.aerospike.client;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks a single query or scan stream.
+ * The per-record cost is an increment, and a clock read for the first record only;
+ * the stream meters are updated once, when the stream finishes.
+ * Callbacks may arrive concurrently from several node threads.
+ */
+final class StreamSample {
+
+    private final StreamMeters meters;
+    private final long startTime;
+    private final AtomicLong firstRecordTime = new AtomicLong();
+    private final AtomicLong records = new AtomicLong();
+    private final AtomicBoolean finished = new AtomicBoolean();
+
+    StreamSample(StreamMeters meters, long startTime) {
+        this.meters = meters;
+        this.startTime = startTime;
+    }
+
+    void record() {
+        if (records.getAndIncrement() == 0) {
+            firstRecordTime.compareAndSet(0, meters.monotonicTime());
+        }
+    }
+
+    void finish() {
+        if (finished.compareAndSet(false, true)) {
+            meters.record(startTime, firstRecordTime.get(), meters.monotonicTime(), records.get());
+        }
+    }
+}
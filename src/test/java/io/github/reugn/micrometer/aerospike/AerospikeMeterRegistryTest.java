@@ -1,11 +1,22 @@
 package io.github.reugn.micrometer.aerospike;
 
+import com.aerospike.client.Bin;
+import com.aerospike.client.Key;
+import com.aerospike.client.Record;
+import com.aerospike.client.ResultCode;
+import com.aerospike.client.async.EventLoops;
+import com.aerospike.client.async.NioEventLoops;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MockClock;
 import io.micrometer.core.instrument.Timer;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class AerospikeMeterRegistryTest {
@@ -14,7 +25,10 @@ public class AerospikeMeterRegistryTest {
 
     private final MockClock clock = new MockClock();
 
-    private final AerospikeMeterRegistry meterRegistry = new AerospikeMeterRegistry(config, clock);
+    private final InMemoryAerospikeClient client = new InMemoryAerospikeClient();
+
+    private final AerospikeMeterRegistry meterRegistry = new AerospikeMeterRegistry(config, clock,
+            Executors.defaultThreadFactory(), client.client());
 
     @Test
     void handleGauge() {
@@ -47,4 +61,232 @@ public class AerospikeMeterRegistryTest {
         assertNotNull(timer);
         assertTrue(meterRegistry.handleTimer(timer).isPresent());
     }
+
+    @Test
+    void publish() {
+        meterRegistry.counter("counter", "tag1", "val1").increment();
+        meterRegistry.timer("timer", "tag1", "val1").record(Duration.ofMillis(5));
+        clock.add(config.step());
+
+        meterRegistry.publish();
+
+        long step = clock.wallTime() - clock.wallTime() % config.step().toMillis();
+        Key key = new Key(config.namespace(), config.setName(), "counter{tag1=val1}_" + step);
+        Record record = client.record(key);
+        assertNotNull(record);
+        assertEquals("Counter", record.getString("type"));
+        assertEquals("val1", record.getString("__tag1"));
+        assertEquals(1.0, record.getDouble("count"));
+        assertEquals(step, record.getLong("ts"));
+        assertNotNull(client.record(new Key(config.namespace(), config.setName(), "timer{tag1=val1}_" + step)));
+    }
+
+    @Test
+    void publishSameNameWithDifferentTags() {
+        meterRegistry.counter("requests", "uri", "/a").increment();
+        meterRegistry.counter("requests", "uri", "/b").increment(2);
+        clock.add(config.step());
+
+        meterRegistry.publish();
+
+        long step = clock.wallTime() - clock.wallTime() % config.step().toMillis();
+        Record first = client.record(new Key(config.namespace(), config.setName(), "requests{uri=/a}_" + step));
+        Record second = client.record(new Key(config.namespace(), config.setName(), "requests{uri=/b}_" + step));
+        assertNotNull(first);
+        assertNotNull(second);
+        assertEquals("/a", first.getString("__uri"));
+        assertEquals(1.0, first.getDouble("count"));
+        assertEquals("/b", second.getString("__uri"));
+        assertEquals(2.0, second.getDouble("count"));
+    }
+
+    @Test
+    void publishThroughput() {
+        AerospikeConfig concurrent = new AerospikeConfig() {
+            @Override
+            public String get(String key) {
+                return null;
+            }
+
+            @Override
+            public int batchSize() {
+                return 100;
+            }
+
+            @Override
+            public int publishConcurrency() {
+                return 4;
+            }
+        };
+        client.latency(Duration.ofMillis(20));
+        AerospikeMeterRegistry registry = new AerospikeMeterRegistry(concurrent, clock,
+                Executors.defaultThreadFactory(), client.client());
+        for (int i = 0; i < 2000; i++) {
+            registry.counter("counter." + i).increment();
+        }
+
+        registry.publish();
+
+        assertEquals(2000, records("counter_"));
+        assertTrue(client.batchCalls() >= 20);
+        // the 20ms batch writes overlap, up to the publish concurrency
+        int peak = client.maxInFlight();
+        assertTrue(peak > 1 && peak <= concurrent.publishConcurrency(), "peak of " + peak + " batches in flight");
+        registry.close();
+    }
+
+    @Test
+    void publishBackpressure() {
+        AerospikeConfig bounded = new AerospikeConfig() {
+            @Override
+            public String get(String key) {
+                return null;
+            }
+
+            @Override
+            public int batchSize() {
+                return 10;
+            }
+
+            @Override
+            public int publishConcurrency() {
+                return 2;
+            }
+        };
+        client.latency(Duration.ofMillis(5));
+        AerospikeMeterRegistry registry = new AerospikeMeterRegistry(bounded, clock,
+                Executors.defaultThreadFactory(), client.client());
+        for (int i = 0; i < 200; i++) {
+            registry.gauge("gauge." + i, i);
+        }
+
+        registry.publish();
+
+        assertEquals(200, records("gauge_"));
+        assertTrue(client.maxInFlight() <= 2);
+        registry.close();
+    }
+
+    @Test
+    void publishWithFailedRecords() {
+        client.failWith(ResultCode.DEVICE_OVERLOAD, key -> key.userKey.toString().startsWith("failing"));
+        meterRegistry.gauge("failing", 1);
+        meterRegistry.gauge("passing", 1);
+
+        meterRegistry.publish();
+
+        assertEquals(0, records("failing"));
+        assertEquals(1, records("passing"));
+        clock.add(config.step());
+        assertEquals(1.0 + config.publishRetries(),
+                meterRegistry.get("aerospike.registry.record.failures").counter().count());
+        assertEquals(config.publishRetries(), meterRegistry.get("aerospike.registry.record.retries").counter().count());
+        assertEquals(1.0, meterRegistry.get("aerospike.registry.record.drops").counter().count());
+    }
+
+    @Test
+    void truncateExpiredSets() {
+        AerospikeConfig rotating = new AerospikeConfig() {
+            @Override
+            public String get(String key) {
+                return null;
+            }
+
+            @Override
+            public SetRotation setRotation() {
+                return SetRotation.DAILY;
+            }
+
+            @Override
+            public Duration setRetention() {
+                return Duration.ofDays(1);
+            }
+        };
+        Key expired = new Key(config.namespace(), "micrometer_1", "gauge_86400000");
+        Key retained = new Key(config.namespace(), "micrometer_2", "gauge_172800000");
+        client.client().put(null, expired, new Bin("value", 1.0));
+        client.client().put(null, retained, new Bin("value", 1.0));
+        AerospikeMeterRegistry registry = new AerospikeMeterRegistry(rotating, clock,
+                Executors.defaultThreadFactory(), client.client());
+        registry.gauge("gauge", 1);
+        clock.add(Duration.ofDays(3));
+
+        registry.publish();
+
+        assertNull(client.record(expired));
+        assertNotNull(client.record(retained));
+        long step = clock.wallTime() - clock.wallTime() % config.step().toMillis();
+        assertNotNull(client.record(new Key(config.namespace(), "micrometer_0", "gauge_" + step)));
+        clock.add(config.step());
+        assertEquals(1.0, registry.get("aerospike.registry.sets.truncated").counter().count());
+
+        clock.add(Duration.ofDays(1));
+        registry.publish();
+
+        assertNull(client.record(retained));
+        clock.add(config.step());
+        assertEquals(1.0, registry.get("aerospike.registry.sets.truncated").counter().count());
+        registry.close();
+    }
+
+    @Test
+    void closeDoesNotRollupStepAgain() {
+        AerospikeConfig rollingUp = new AerospikeConfig() {
+            @Override
+            public String get(String key) {
+                return null;
+            }
+
+            @Override
+            public List<RollupTier> rollupTiers() {
+                return Collections.singletonList(new RollupTier(Duration.ofHours(1), Duration.ofDays(1)));
+            }
+        };
+        AerospikeMeterRegistry registry = new AerospikeMeterRegistry(rollingUp, clock,
+                Executors.defaultThreadFactory(), client.client());
+        registry.counter("counter").increment(3);
+        clock.add(config.step());
+
+        registry.publish();
+        registry.close();
+
+        Record rollup = client.record(new Key(config.namespace(), "micrometer_1h", "counter_0"));
+        assertNotNull(rollup);
+        assertEquals(1L, rollup.getLong("samples"));
+        assertEquals(3.0, rollup.getDouble("count"));
+    }
+
+    @Test
+    void sharedClientIsNotClosed() {
+        AerospikeMeterRegistry registry = new AerospikeMeterRegistry.Builder(config)
+                .clock(clock)
+                .client(client.client())
+                .build();
+        registry.close();
+        assertFalse(client.isClosed());
+    }
+
+    @Test
+    void publishOnEventLoops() {
+        EventLoops eventLoops = new NioEventLoops(1);
+        try {
+            AerospikeMeterRegistry registry = new AerospikeMeterRegistry.Builder(config)
+                    .clock(clock)
+                    .client(client.client())
+                    .eventLoops(eventLoops)
+                    .build();
+            registry.gauge("gauge", 1);
+
+            registry.publish();
+
+            assertEquals(1, records("gauge_"));
+            registry.close();
+        } finally {
+            eventLoops.close();
+        }
+    }
+
+    private long records(String prefix) {
+        return client.keys().stream().filter(key -> key.userKey.toString().startsWith(prefix)).count();
+    }
 }
@@ -0,0 +1,291 @@
+package io.github.reugn.micrometer.aerospike;
+
+import com.aerospike.client.BatchRecord;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.config.NamingConvention;
+import io.micrometer.core.instrument.distribution.CountAtBucket;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AerospikeMetricsReaderTest {
+
+    private final NamingConvention convention = new AerospikeNamingConvention();
+
+    private final InMemoryAerospikeClient client = new InMemoryAerospikeClient();
+
+    private final Meter.Id queueSize = new Meter.Id("queue.size", Tags.of("region", "eu"),
+            null, null, Meter.Type.GAUGE);
+
+    private final Meter.Id queueCapacity = new Meter.Id("queue.capacity", Tags.of("region", "eu"),
+            null, null, Meter.Type.GAUGE);
+
+    @Test
+    void readSeries() throws InterruptedException {
+        AerospikeConfig config = AerospikeConfig.DEFAULT;
+        writeGauges(config);
+
+        try (AerospikeMetricsReader reader = new AerospikeMetricsReader.Builder(client.client(), config)
+                .parallelism(3)
+                .build()) {
+            List<MetricSample> samples = reader.read("queue_size", Collections.singletonMap("region", "eu"),
+                    Instant.ofEpochMilli(61000), Instant.ofEpochMilli(121001));
+            assertEquals(3, client.queryCalls());
+
+            assertEquals(2, samples.size());
+            assertEquals("queue_size", samples.get(0).getName());
+            assertEquals("Gauge", samples.get(0).getType());
+            assertEquals(61000, samples.get(0).getTimestamp());
+            assertEquals("eu", samples.get(0).getTags().get("region"));
+            assertEquals(2.0, samples.get(0).getValues().get("value"));
+            assertEquals(3.0, samples.get(1).getValues().get("value"));
+
+            assertTrue(reader.read("queue_size", Collections.singletonMap("region", "us"),
+                    Instant.EPOCH, Instant.ofEpochMilli(121001)).isEmpty());
+        }
+    }
+
+    @Test
+    void readBucketedPackedSeries() throws InterruptedException {
+        AerospikeConfig config = new AerospikeConfig() {
+            @Override
+            public String get(String key) {
+                return null;
+            }
+
+            @Override
+            public StorageMode storageMode() {
+                return StorageMode.BUCKETED;
+            }
+
+            @Override
+            public boolean packedEncoding() {
+                return true;
+            }
+        };
+        writeGauges(config);
+
+        try (AerospikeMetricsReader reader = new AerospikeMetricsReader(client.client(), config)) {
+            List<MetricSample> samples = reader.read("queue_size", Collections.singletonMap("region", "eu"),
+                    Instant.ofEpochMilli(61000), Instant.ofEpochMilli(121001));
+
+            assertEquals(2, samples.size());
+            assertEquals("Gauge", samples.get(0).getType());
+            assertEquals(61000, samples.get(0).getTimestamp());
+            assertEquals("eu", samples.get(0).getTags().get("region"));
+            assertEquals(2.0, samples.get(0).getValues().get("value"));
+            assertEquals(3.0, samples.get(1).getValues().get("value"));
+        }
+    }
+
+    @Test
+    void readSeriesByKeys() {
+        AerospikeConfig config = new AerospikeConfig() {
+            @Override
+            public String get(String key) {
+                return null;
+            }
+
+            @Override
+            public boolean seriesKeys() {
+                return true;
+            }
+        };
+        MeterEncoder encoder = encoder(config);
+        Meter.Id other = new Meter.Id("queue.size", Tags.of("region", "us"), null, null, Meter.Type.GAUGE);
+        for (int i = 0; i < 3; i++) {
+            long timestamp = i * 60000L;
+            write(encoder.encode(queueSize, SampleType.GAUGE, timestamp, i + 1).orElseThrow(AssertionError::new));
+            write(encoder.encode(other, SampleType.GAUGE, timestamp, 100).orElseThrow(AssertionError::new));
+        }
+        int batchCalls = client.batchCalls();
+        AtomicInteger threads = new AtomicInteger();
+
+        try (AerospikeMetricsReader reader = new AerospikeMetricsReader.Builder(client.client(), config)
+                .threadFactory(runnable -> {
+                    threads.incrementAndGet();
+                    return new Thread(runnable);
+                })
+                .build()) {
+            List<MetricSample> samples = reader.readSeries("queue_size", Collections.singletonMap("region", "eu"),
+                    Instant.ofEpochMilli(60000), Instant.ofEpochMilli(240000));
+
+            assertEquals(batchCalls + 1, client.batchCalls());
+            assertEquals(0, client.queryCalls());
+            assertEquals(2, samples.size());
+            assertEquals(60000, samples.get(0).getTimestamp());
+            assertEquals(2.0, samples.get(0).getValues().get("value"));
+            assertEquals(3.0, samples.get(1).getValues().get("value"));
+            assertEquals(0, threads.get());
+        }
+    }
+
+    @Test
+    void readAllInstances() throws InterruptedException {
+        for (String instanceId : new String[]{"pod-1", "pod-2"}) {
+            AerospikeConfig config = new AerospikeConfig() {
+                @Override
+                public String get(String key) {
+                    return null;
+                }
+
+                @Override
+                public String instanceId() {
+                    return instanceId;
+                }
+            };
+            write(encoder(config).encode(queueSize, SampleType.GAUGE, 60000L, 1).orElseThrow(AssertionError::new));
+        }
+
+        try (AerospikeMetricsReader reader = new AerospikeMetricsReader(client.client(), AerospikeConfig.DEFAULT)) {
+            List<MetricSample> samples = reader.read("queue_size", Collections.emptyMap(),
+                    Instant.EPOCH, Instant.ofEpochMilli(120000));
+
+            assertEquals(2, samples.size());
+            assertEquals(new HashSet<>(Arrays.asList("pod-1", "pod-2")),
+                    samples.stream().map(MetricSample::getInstance).collect(Collectors.toSet()));
+        }
+    }
+
+    @Test
+    void readRotatedSets() throws InterruptedException {
+        AerospikeConfig config = new AerospikeConfig() {
+            @Override
+            public String get(String key) {
+                return null;
+            }
+
+            @Override
+            public SetRotation setRotation() {
+                return SetRotation.HOURLY;
+            }
+
+            @Override
+            public Duration setRetention() {
+                return Duration.ofHours(2);
+            }
+
+            @Override
+            public boolean seriesKeys() {
+                return true;
+            }
+        };
+        MeterEncoder encoder = encoder(config);
+        for (int i = 0; i < 3; i++) {
+            long timestamp = 3_540_000L + i * 60000L;
+            write(encoder.encode(queueSize, SampleType.GAUGE, timestamp, i + 1).orElseThrow(AssertionError::new));
+        }
+        assertEquals(new HashSet<>(Arrays.asList("micrometer_0", "micrometer_1")),
+                client.keys().stream().map(key -> key.setName).collect(Collectors.toSet()));
+
+        try (AerospikeMetricsReader reader = new AerospikeMetricsReader.Builder(client.client(), config)
+                .parallelism(2)
+                .build()) {
+            Instant from = Instant.ofEpochMilli(3_540_000L);
+            Instant to = Instant.ofEpochMilli(3_720_000L);
+            List<MetricSample> samples = reader.read("queue_size", Collections.singletonMap("region", "eu"), from, to);
+            assertEquals(4, client.queryCalls());
+            assertEquals(3, samples.size());
+            assertEquals(3.0, samples.get(2).getValues().get("value"));
+
+            samples = reader.readSeries("queue_size", Collections.singletonMap("region", "eu"), from, to);
+            assertEquals(3, samples.size());
+            assertEquals(1.0, samples.get(0).getValues().get("value"));
+        }
+    }
+
+    @Test
+    void readHistogram() throws InterruptedException {
+        AerospikeConfig config = AerospikeConfig.DEFAULT;
+        MeterEncoder encoder = encoder(config);
+        Meter.Id id = new Meter.Id("latency", Tags.empty(), null, null, Meter.Type.TIMER);
+        HistogramSnapshot snapshot = new HistogramSnapshot(2, 55, 50,
+                new ValueAtPercentile[]{new ValueAtPercentile(0.5, 5.0e6)},
+                new CountAtBucket[]{new CountAtBucket(1.0e7, 1), new CountAtBucket(1.0e8, 2)},
+                null);
+        write(encoder.encode(id, SampleType.TIMER, 1000L, snapshot, TimeUnit.MILLISECONDS, 2, 50, 27.5, 55)
+                .orElseThrow(AssertionError::new));
+
+        try (AerospikeMetricsReader reader = new AerospikeMetricsReader(client.client(), config)) {
+            List<MetricSample> samples = reader.read("latency", Collections.emptyMap(),
+                    Instant.EPOCH, Instant.ofEpochMilli(2000));
+
+            assertEquals(1, samples.size());
+            MetricSample sample = samples.get(0);
+            assertEquals("Timer", sample.getType());
+            assertEquals(2.0, sample.getValues().get("count"));
+            assertEquals(1, sample.getPercentiles().size());
+            Map<Double, Long> histogram = sample.getHistogram();
+            assertEquals(1L, histogram.get(10.0));
+            assertEquals(2L, histogram.get(100.0));
+        }
+    }
+
+    @Test
+    void skipRecordsOfOtherStorageMode() throws InterruptedException {
+        AerospikeConfig config = new AerospikeConfig() {
+            @Override
+            public String get(String key) {
+                return null;
+            }
+
+            @Override
+            public StorageMode storageMode() {
+                return StorageMode.BUCKETED;
+            }
+        };
+        writeGauges(config);
+        write(encoder(AerospikeConfig.DEFAULT).encode(queueSize, SampleType.GAUGE, 61000L, 5)
+                .orElseThrow(AssertionError::new));
+
+        try (AerospikeMetricsReader bucketed = new AerospikeMetricsReader(client.client(), config);
+             AerospikeMetricsReader plain = new AerospikeMetricsReader(client.client(), AerospikeConfig.DEFAULT)) {
+            List<MetricSample> samples = bucketed.read("queue_size", Collections.singletonMap("region", "eu"),
+                    Instant.EPOCH, Instant.ofEpochMilli(121001));
+            assertEquals(3, samples.size());
+            assertEquals(2.0, samples.get(1).getValues().get("value"));
+
+            samples = plain.read("queue_size", Collections.singletonMap("region", "eu"),
+                    Instant.EPOCH, Instant.ofEpochMilli(121001));
+            assertEquals(1, samples.size());
+            assertEquals(5.0, samples.get(0).getValues().get("value"));
+        }
+    }
+
+    /**
+     * Writes the queue size gauge in three steps, along with another gauge of the same tags.
+     */
+    private void writeGauges(AerospikeConfig config) {
+        MeterEncoder encoder = encoder(config);
+        for (int i = 0; i < 3; i++) {
+            long timestamp = 1000 + i * 60000L;
+            write(encoder.encode(queueSize, SampleType.GAUGE, timestamp, i + 1).orElseThrow(AssertionError::new));
+            write(encoder.encode(queueCapacity, SampleType.GAUGE, timestamp, 10).orElseThrow(AssertionError::new));
+        }
+    }
+
+    private MeterEncoder encoder(AerospikeConfig config) {
+        return new MeterEncoder(config, id -> id.getConventionName(convention), id -> id.getConventionTags(convention));
+    }
+
+    private void write(BatchRecord record) {
+        List<BatchRecord> batch = new ArrayList<>();
+        batch.add(record);
+        assertTrue(client.client().operate(null, batch));
+    }
+}
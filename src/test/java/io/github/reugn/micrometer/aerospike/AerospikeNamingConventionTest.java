@@ -0,0 +1,37 @@
+package io.github.reugn.micrometer.aerospike;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.util.StringEscapeUtils;
+import org.junit.jupiter.api.Test;
+
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AerospikeNamingConventionTest {
+
+    private static final Pattern BLACKLISTED_CHARS = Pattern.compile("[{}():,=\\[\\]]");
+
+    private final AerospikeNamingConvention convention = new AerospikeNamingConvention();
+
+    @Test
+    void matchEscapeJsonAndBlacklist() {
+        String[] names = {
+                "", "plain", "/api/v1/users", "GET /users/{id}", "map[key]=(value)", "a,b:c",
+                "quote\"back\\slash", "tab\tnew\nline\rreturn\bback\fform", "\u0000\u001f\u007f",
+                "line\u2028paragraph\u2029", "unicode \u00e9\u4e2d\ud83d\ude00"
+        };
+        for (String name : names) {
+            String expected = BLACKLISTED_CHARS.matcher(StringEscapeUtils.escapeJson(name)).replaceAll("_");
+            assertEquals(expected, AerospikeNamingConvention.format(name), name);
+        }
+        assertEquals("", AerospikeNamingConvention.format(null));
+    }
+
+    @Test
+    void returnSameInstanceWhenUnchanged() {
+        String value = "/api/v1/users";
+        assertSame(value, convention.tagValue(value));
+        assertEquals("http_server_requests", convention.name("http.server.requests", Meter.Type.TIMER));
+    }
+}
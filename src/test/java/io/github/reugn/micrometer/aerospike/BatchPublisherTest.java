@@ -0,0 +1,203 @@
+package io.github.reugn.micrometer.aerospike;
+
+import com.aerospike.client.BatchRecord;
+import com.aerospike.client.BatchWrite;
+import com.aerospike.client.Bin;
+import com.aerospike.client.IAerospikeClient;
+import com.aerospike.client.Key;
+import com.aerospike.client.Operation;
+import com.aerospike.client.ResultCode;
+import com.aerospike.client.Value;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchPublisherTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void boundInFlightBatches() throws InterruptedException {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        AtomicInteger written = new AtomicInteger();
+        IAerospikeClient client = client(() -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(5);
+            inFlight.decrementAndGet();
+            written.incrementAndGet();
+            return true;
+        });
+
+        try (BatchPublisher publisher = publisher(client, 2)) {
+            for (int i = 0; i < 10; i++) {
+                publisher.submit(batch(), deadline());
+            }
+            assertTrue(publisher.await(Duration.ofSeconds(10)));
+        }
+        assertEquals(10, written.get());
+        assertTrue(maxInFlight.get() <= 2);
+    }
+
+    @Test
+    void countFailures() throws InterruptedException {
+        AtomicInteger calls = new AtomicInteger();
+        IAerospikeClient client = client(() -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new IllegalStateException("unavailable");
+            }
+            return false;
+        });
+
+        try (BatchPublisher publisher = publisher(client, 1)) {
+            publisher.submit(batch(), deadline());
+            publisher.submit(batch(), deadline());
+            assertTrue(publisher.await(Duration.ofSeconds(10)));
+        }
+        assertEquals(1, count("aerospike.registry.batch.failures"));
+        assertEquals(1, count("aerospike.registry.record.failures"));
+        assertEquals(0, count("aerospike.registry.record.retries"));
+        assertEquals(2, count("aerospike.registry.record.drops"));
+    }
+
+    @Test
+    void retryRejectedRecords() throws InterruptedException {
+        InMemoryAerospikeClient client = new InMemoryAerospikeClient();
+        AtomicInteger rejections = new AtomicInteger();
+        client.failWith(ResultCode.DEVICE_OVERLOAD,
+                key -> key.userKey.toString().equals("overloaded") && rejections.incrementAndGet() <= 2);
+        List<BatchRecord> batch = Arrays.asList(write("overloaded"), write("written"));
+
+        try (BatchPublisher publisher = publisher(client.client(), 1)) {
+            publisher.submit(batch, deadline());
+            assertTrue(publisher.await(Duration.ofSeconds(10)));
+        }
+        assertEquals(2, client.size());
+        assertEquals(3, client.batchCalls());
+        assertEquals(2, count("aerospike.registry.record.failures"));
+        assertEquals(2, count("aerospike.registry.record.retries"));
+        assertEquals(0, count("aerospike.registry.record.drops"));
+    }
+
+    @Test
+    void dropRecordsAfterRetries() throws InterruptedException {
+        InMemoryAerospikeClient client = new InMemoryAerospikeClient();
+        client.failWith(ResultCode.TIMEOUT, key -> true);
+        List<BatchRecord> dropped = new ArrayList<>();
+        AerospikeConfig config = config(1);
+
+        try (BatchPublisher publisher = new BatchPublisher(client.client(), config,
+                Executors.defaultThreadFactory(), null, registry, dropped::addAll)) {
+            publisher.submit(Collections.singletonList(write("timeout")), deadline());
+            assertTrue(publisher.await(Duration.ofSeconds(10)));
+        }
+        assertEquals(1 + config.publishRetries(), client.batchCalls());
+        assertEquals(config.publishRetries(), count("aerospike.registry.record.retries"));
+        assertEquals(1, count("aerospike.registry.record.drops"));
+        assertEquals(1, dropped.size());
+    }
+
+    @Test
+    void deferOnlyRecordsSafeToWriteAgain() throws InterruptedException {
+        IAerospikeClient client = (IAerospikeClient) Proxy.newProxyInstance(
+                IAerospikeClient.class.getClassLoader(), new Class<?>[]{IAerospikeClient.class},
+                (proxy, method, args) -> {
+                    @SuppressWarnings("unchecked")
+                    List<BatchRecord> batch = (List<BatchRecord>) args[1];
+                    for (BatchRecord record : batch) {
+                        String key = record.key.userKey.toString();
+                        record.resultCode = key.equals("invalid") ? ResultCode.PARAMETER_ERROR : ResultCode.TIMEOUT;
+                        record.inDoubt = key.equals("added");
+                    }
+                    return false;
+                });
+        List<BatchRecord> deferred = new ArrayList<>();
+        BatchRecord added = new BatchWrite(new Key("test", "micrometer", "added"),
+                new Operation[]{Operation.add(new Bin("count", 1L))});
+
+        try (BatchPublisher publisher = new BatchPublisher(client, config(1),
+                Executors.defaultThreadFactory(), null, registry, deferred::addAll)) {
+            publisher.submit(Arrays.asList(write("timeout"), write("invalid"), added), deadline());
+            assertTrue(publisher.await(Duration.ofSeconds(10)));
+        }
+        assertEquals(3, count("aerospike.registry.record.drops"));
+        assertEquals(1, deferred.size());
+        assertEquals("timeout", deferred.get(0).key.userKey.toString());
+    }
+
+    @Test
+    void stopRetriesAtDeadline() throws InterruptedException {
+        InMemoryAerospikeClient client = new InMemoryAerospikeClient();
+        client.failWith(ResultCode.DEVICE_OVERLOAD, key -> true);
+
+        try (BatchPublisher publisher = publisher(client.client(), 1)) {
+            publisher.submit(Collections.singletonList(write("overloaded")), System.nanoTime());
+            assertTrue(publisher.await(Duration.ofSeconds(10)));
+        }
+        assertEquals(1, client.batchCalls());
+        assertEquals(1, count("aerospike.registry.record.drops"));
+    }
+
+    private BatchPublisher publisher(IAerospikeClient client, int concurrency) {
+        return new BatchPublisher(client, config(concurrency), Executors.defaultThreadFactory(), registry);
+    }
+
+    private static AerospikeConfig config(int concurrency) {
+        return new AerospikeConfig() {
+            @Override
+            public String get(String key) {
+                return null;
+            }
+
+            @Override
+            public int publishConcurrency() {
+                return concurrency;
+            }
+
+            @Override
+            public Duration retryBackoff() {
+                return Duration.ofMillis(1);
+            }
+        };
+    }
+
+    private static long deadline() {
+        return System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    }
+
+    private double count(String name) {
+        return registry.get(name).counter().count();
+    }
+
+    private static BatchRecord write(String key) {
+        return new BatchWrite(new Key("test", "micrometer", key),
+                new Operation[]{new Operation(Operation.Type.WRITE, "value", Value.get(1.0))});
+    }
+
+    private static List<BatchRecord> batch() {
+        BatchRecord record = new BatchRecord(new Key("test", "micrometer", "k"), true);
+        record.resultCode = -1;
+        return Collections.singletonList(record);
+    }
+
+    private static IAerospikeClient client(Operate operate) {
+        return (IAerospikeClient) Proxy.newProxyInstance(IAerospikeClient.class.getClassLoader(),
+                new Class<?>[]{IAerospikeClient.class}, (proxy, method, args) -> operate.call());
+    }
+
+    @FunctionalInterface
+    private interface Operate {
+        boolean call() throws Exception;
+    }
+}
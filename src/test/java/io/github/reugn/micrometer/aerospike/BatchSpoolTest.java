@@ -0,0 +1,217 @@
+package io.github.reugn.micrometer.aerospike;
+
+import com.aerospike.client.BatchRecord;
+import com.aerospike.client.BatchWrite;
+import com.aerospike.client.Bin;
+import com.aerospike.client.Key;
+import com.aerospike.client.Operation;
+import com.aerospike.client.Record;
+import com.aerospike.client.ResultCode;
+import com.aerospike.client.Value;
+import com.aerospike.client.cdt.MapOperation;
+import com.aerospike.client.cdt.MapPolicy;
+import com.aerospike.client.policy.BatchWritePolicy;
+import io.micrometer.core.instrument.MockClock;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchSpoolTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void appendPeekRemove() {
+        try (BatchSpool spool = new BatchSpool(directory, 1024, 256)) {
+            assertNull(spool.peek());
+            assertTrue(spool.append(new byte[]{1, 2, 3}, 1000L));
+            assertTrue(spool.append(new byte[]{4}, 2000L));
+
+            assertEquals(2, spool.depth());
+            assertEquals(1000L, spool.oldestTimestamp());
+            assertArrayEquals(new byte[]{1, 2, 3}, spool.peek());
+            spool.remove();
+            assertArrayEquals(new byte[]{4}, spool.peek());
+            spool.remove();
+            assertEquals(0, spool.depth());
+            assertEquals(-1, spool.oldestTimestamp());
+        }
+    }
+
+    @Test
+    void resumeAfterReopen() {
+        try (BatchSpool spool = new BatchSpool(directory, 1024, 256)) {
+            spool.append(new byte[]{1}, 1000L);
+            spool.append(new byte[]{2}, 2000L);
+            spool.remove();
+        }
+        try (BatchSpool spool = new BatchSpool(directory, 1024, 256)) {
+            assertEquals(1, spool.depth());
+            assertArrayEquals(new byte[]{2}, spool.peek());
+            spool.append(new byte[]{3}, 3000L);
+            assertEquals(2, spool.depth());
+        }
+    }
+
+    @Test
+    void deleteReplayedSegments() throws IOException {
+        // a single entry per segment
+        try (BatchSpool spool = new BatchSpool(directory, 1024, 32)) {
+            spool.append(new byte[10], 1000L);
+            spool.remove();
+            spool.append(new byte[]{1}, 2000L);
+            spool.append(new byte[]{2}, 3000L);
+            spool.append(new byte[]{3}, 4000L);
+
+            spool.remove();
+
+            assertEquals(2, spool.depth());
+            assertArrayEquals(new byte[]{2}, spool.peek());
+            assertEquals(2, segmentFiles());
+            spool.remove();
+            assertArrayEquals(new byte[]{3}, spool.peek());
+            assertEquals(1, segmentFiles());
+        }
+    }
+
+    @Test
+    void evictOldestSegment() {
+        try (BatchSpool spool = new BatchSpool(directory, 256, 128)) {
+            byte[] batch = new byte[50];
+            for (int i = 0; i < 6; i++) {
+                assertTrue(spool.append(batch, i));
+            }
+            // two entries per segment, two segments
+            assertEquals(4, spool.depth());
+            assertEquals(2, spool.evicted());
+            assertEquals(2L, spool.oldestTimestamp());
+            assertFalse(spool.append(new byte[200], 0));
+        }
+    }
+
+    @Test
+    void encodeBatch() {
+        BatchWritePolicy policy = new BatchWritePolicy();
+        Key key = new Key("test", "micrometer", "counter_1000");
+        BatchWrite write = new BatchWrite(policy, key, new Operation[]{
+                new Operation(Operation.Type.WRITE, "type", Value.get("Counter")),
+                new Operation(Operation.Type.WRITE, "count", Value.get(1.5)),
+                new Operation(Operation.Type.WRITE, "ts", Value.get(1000L)),
+                new Operation(Operation.Type.WRITE, "pct", Value.get(Collections.singletonMap(0.99, 2.0))),
+                Operation.add(new Bin("sum", 3L)),
+                MapOperation.put(MapPolicy.Default, "hist", Value.get(10.0), Value.get(2L))
+        });
+
+        List<BatchRecord> decoded = BatchCodec.decode(BatchCodec.encode(Collections.singletonList(write)), policy);
+
+        assertEquals(1, decoded.size());
+        BatchWrite copy = (BatchWrite) decoded.get(0);
+        assertEquals(key, copy.key);
+        assertEquals(write.ops.length, copy.ops.length);
+        for (int i = 0; i < write.ops.length; i++) {
+            assertEquals(write.ops[i].type, copy.ops[i].type);
+            assertEquals(write.ops[i].binName, copy.ops[i].binName);
+        }
+        assertArrayEquals((byte[]) write.ops[5].value.getObject(), (byte[]) copy.ops[5].value.getObject());
+        assertEquals(Collections.singletonMap(0.99, 2.0), copy.ops[3].value.getObject());
+    }
+
+    @Test
+    void keepRecordExpiration() {
+        BatchWritePolicy policy = new BatchWritePolicy();
+        BatchWritePolicy tierPolicy = new BatchWritePolicy();
+        tierPolicy.expiration = 3600;
+        List<BatchRecord> batch = Arrays.asList(
+                new BatchWrite(policy, new Key("test", "micrometer", "counter_1000"),
+                        new Operation[]{Operation.add(new Bin("count", 1L))}),
+                new BatchWrite(tierPolicy, new Key("test", "micrometer_1h", "counter_0"),
+                        new Operation[]{Operation.add(new Bin("count", 1L))}));
+
+        List<BatchRecord> decoded = BatchCodec.decode(BatchCodec.encode(batch), policy);
+
+        assertSame(policy, ((BatchWrite) decoded.get(0)).policy);
+        assertEquals(3600, ((BatchWrite) decoded.get(1)).policy.expiration);
+    }
+
+    @Test
+    void replaySpooledBatches() {
+        InMemoryAerospikeClient client = new InMemoryAerospikeClient();
+        AerospikeConfig config = AerospikeConfig.DEFAULT;
+        MockClock clock = new MockClock();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Key key = new Key("test", "micrometer", "gauge_1");
+        List<BatchRecord> batch = Collections.singletonList(new BatchWrite(key,
+                new Operation[]{new Operation(Operation.Type.WRITE, "value", Value.get(1.0))}));
+
+        try (SpoolReplayer replayer = new SpoolReplayer(new BatchSpool(directory, 1024, 256),
+                client.client(), config, clock, Thread::new, registry)) {
+            replayer.spool(batch);
+            clock.add(Duration.ofSeconds(5));
+            assertEquals(5.0, registry.get("aerospike.spool.lag").timeGauge().value(TimeUnit.SECONDS));
+
+            client.failWith(ResultCode.SERVER_NOT_AVAILABLE, k -> true);
+            replayer.replay();
+            assertEquals(1.0, registry.get("aerospike.spool.depth").gauge().value());
+
+            client.failWith(ResultCode.OK, k -> false);
+            replayer.replay();
+            assertEquals(0.0, registry.get("aerospike.spool.depth").gauge().value());
+            Record record = client.record(key);
+            assertEquals(1.0, record.getDouble("value"));
+        }
+    }
+
+    @Test
+    void dropRejectedBatches() {
+        InMemoryAerospikeClient client = new InMemoryAerospikeClient();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Key invalid = new Key("test", "micrometer", "invalid_1");
+        Key overloaded = new Key("test", "micrometer", "overloaded_1");
+        Key valid = new Key("test", "micrometer", "gauge_1");
+
+        try (SpoolReplayer replayer = new SpoolReplayer(new BatchSpool(directory, 1024 * 1024, 64 * 1024),
+                client.client(), AerospikeConfig.DEFAULT, new MockClock(), Thread::new, registry)) {
+            replayer.spool(Collections.singletonList(write(invalid)));
+            client.failWith(ResultCode.PARAMETER_ERROR, k -> k.equals(invalid));
+            replayer.replay();
+            assertEquals(0.0, registry.get("aerospike.spool.depth").gauge().value());
+            assertEquals(1.0, registry.get("aerospike.spool.dropped").counter().count());
+
+            replayer.spool(Collections.singletonList(write(overloaded)));
+            replayer.spool(Collections.singletonList(write(valid)));
+            client.failWith(ResultCode.DEVICE_OVERLOAD, k -> k.equals(overloaded));
+            for (int i = 1; i < SpoolReplayer.MAX_REJECTED_REPLAYS; i++) {
+                replayer.replay();
+            }
+            assertEquals(2.0, registry.get("aerospike.spool.depth").gauge().value());
+            replayer.replay();
+
+            assertEquals(0.0, registry.get("aerospike.spool.depth").gauge().value());
+            assertEquals(2.0, registry.get("aerospike.spool.dropped").counter().count());
+            assertNotNull(client.record(valid));
+        }
+    }
+
+    private static BatchRecord write(Key key) {
+        return new BatchWrite(key, new Operation[]{new Operation(Operation.Type.WRITE, "value", Value.get(1.0))});
+    }
+
+    private long segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+}
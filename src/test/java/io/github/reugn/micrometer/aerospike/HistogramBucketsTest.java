@@ -0,0 +1,31 @@
+package io.github.reugn.micrometer.aerospike;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HistogramBucketsTest {
+
+    @Test
+    void interpolateWithinBucket() {
+        Map<Object, Object> buckets = new HashMap<>();
+        buckets.put(10.0, 50L);
+        buckets.put(20.0, 90L);
+        buckets.put(40.0, 100L);
+
+        assertEquals(5.0, HistogramBuckets.percentile(buckets, 0.25), 1e-9);
+        assertEquals(15.0, HistogramBuckets.percentile(buckets, 0.7), 1e-9);
+        assertEquals(38.0, HistogramBuckets.percentile(buckets, 0.99), 1e-9);
+        assertEquals(40.0, HistogramBuckets.percentile(buckets, 1), 1e-9);
+    }
+
+    @Test
+    void emptyHistogram() {
+        assertTrue(Double.isNaN(HistogramBuckets.percentile(Collections.emptyMap(), 0.5)));
+        assertTrue(Double.isNaN(HistogramBuckets.percentile(Collections.singletonMap(1.0, 0L), 0.5)));
+    }
+}
@@ -0,0 +1,614 @@
+package io.github.reugn.micrometer.aerospike;
+
+import com.aerospike.client.AerospikeException;
+import com.aerospike.client.BatchDelete;
+import com.aerospike.client.BatchRead;
+import com.aerospike.client.BatchRecord;
+import com.aerospike.client.BatchWrite;
+import com.aerospike.client.Bin;
+import com.aerospike.client.IAerospikeClient;
+import com.aerospike.client.Key;
+import com.aerospike.client.Operation;
+import com.aerospike.client.Record;
+import com.aerospike.client.ResultCode;
+import com.aerospike.client.Value;
+import com.aerospike.client.cluster.Partition;
+import com.aerospike.client.listener.BatchOperateListListener;
+import com.aerospike.client.query.IQueryExecutor;
+import com.aerospike.client.query.KeyRecord;
+import com.aerospike.client.query.PartitionFilter;
+import com.aerospike.client.query.RecordSet;
+import com.aerospike.client.query.Statement;
+import com.aerospike.client.util.Unpacker;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * An in-memory {@link IAerospikeClient} for running the publish path without a server.
+ * <p>
+ * Supports single record put, get, exists, delete and operate, batch get and sync or async batch operate,
+ * the plain read and write operations and the basic map and list operations, partition queries,
+ * which return the records of the queried partitions without applying the query filters, and set
+ * truncation, which removes all records of the set regardless of their last update time. Calls can be
+ * delayed and records can be failed with a given result code to test latency and error handling.
+ * The other client methods throw {@link UnsupportedOperationException}.
+ */
+public final class InMemoryAerospikeClient implements InvocationHandler {
+
+    private static final Comparator<Object> KEY_ORDER = (a, b) -> {
+        if (a instanceof Number && b instanceof Number) {
+            return Double.compare(((Number) a).doubleValue(), ((Number) b).doubleValue());
+        }
+        if (a instanceof Number) {
+            return -1;
+        }
+        if (b instanceof Number) {
+            return 1;
+        }
+        return String.valueOf(a).compareTo(String.valueOf(b));
+    };
+
+    private final ConcurrentMap<Key, Stored> records = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final AtomicInteger batchCalls = new AtomicInteger();
+    private final AtomicInteger queryCalls = new AtomicInteger();
+    private final IAerospikeClient client;
+
+    private volatile boolean closed;
+    private volatile Duration latency = Duration.ZERO;
+    private volatile Predicate<Key> failing = key -> false;
+    private volatile int failureResultCode = ResultCode.OK;
+
+    public InMemoryAerospikeClient() {
+        this.client = (IAerospikeClient) Proxy.newProxyInstance(IAerospikeClient.class.getClassLoader(),
+                new Class<?>[]{IAerospikeClient.class}, this);
+    }
+
+    /**
+     * Returns the client backed by this store.
+     */
+    public IAerospikeClient client() {
+        return client;
+    }
+
+    /**
+     * Delays every client call by the given duration.
+     */
+    public InMemoryAerospikeClient latency(Duration latency) {
+        this.latency = latency;
+        return this;
+    }
+
+    /**
+     * Fails the operations on the matching keys with the given result code.
+     */
+    public InMemoryAerospikeClient failWith(int resultCode, Predicate<Key> keys) {
+        this.failureResultCode = resultCode;
+        this.failing = keys;
+        return this;
+    }
+
+    public Record record(Key key) {
+        Stored stored = records.get(key);
+        if (stored == null) {
+            return null;
+        }
+        synchronized (stored) {
+            return stored.toRecord(null);
+        }
+    }
+
+    public Collection<Key> keys() {
+        return records.keySet();
+    }
+
+    public int size() {
+        return records.size();
+    }
+
+    /**
+     * Returns the maximum number of client calls that were running at the same time.
+     */
+    public int maxInFlight() {
+        return maxInFlight.get();
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public int batchCalls() {
+        return batchCalls.get();
+    }
+
+    public int queryCalls() {
+        return queryCalls.get();
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getDeclaringClass() == Object.class) {
+            try {
+                return method.invoke(this, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+        switch (method.getName()) {
+            case "close":
+                closed = true;
+                return null;
+            case "isConnected":
+                return !closed;
+            default:
+                break;
+        }
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            delay();
+            return dispatch(method, args);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private Object dispatch(Method method, Object[] args) {
+        Class<?>[] types = method.getParameterTypes();
+        switch (method.getName()) {
+            case "put":
+                if (types.length == 3 && types[1] == Key.class) {
+                    Key key = (Key) args[1];
+                    Bin[] bins = (Bin[]) args[2];
+                    Operation[] ops = new Operation[bins.length];
+                    for (int i = 0; i < bins.length; i++) {
+                        ops[i] = Operation.put(bins[i]);
+                    }
+                    checkFailure(key);
+                    apply(key, ops);
+                    return null;
+                }
+                break;
+            case "get":
+                if (types.length == 2 && types[1] == Key.class) {
+                    return get((Key) args[1], null);
+                }
+                if (types.length == 3 && types[1] == Key.class && types[2] == String[].class) {
+                    return get((Key) args[1], (String[]) args[2]);
+                }
+                if (types.length == 2 && types[1] == Key[].class) {
+                    batchCalls.incrementAndGet();
+                    Key[] keys = (Key[]) args[1];
+                    Record[] result = new Record[keys.length];
+                    for (int i = 0; i < keys.length; i++) {
+                        result[i] = get(keys[i], null);
+                    }
+                    return result;
+                }
+                break;
+            case "exists":
+                if (types.length == 2 && types[1] == Key.class) {
+                    checkFailure((Key) args[1]);
+                    return records.containsKey((Key) args[1]);
+                }
+                break;
+            case "delete":
+                if (types.length == 2 && types[1] == Key.class) {
+                    checkFailure((Key) args[1]);
+                    return records.remove((Key) args[1]) != null;
+                }
+                break;
+            case "operate":
+                if (types.length == 3 && types[1] == Key.class) {
+                    checkFailure((Key) args[1]);
+                    return apply((Key) args[1], (Operation[]) args[2]);
+                }
+                if (types.length == 2 && types[1] == List.class) {
+                    batchCalls.incrementAndGet();
+                    @SuppressWarnings("unchecked")
+                    List<BatchRecord> batch = (List<BatchRecord>) args[1];
+                    return operate(batch);
+                }
+                if (types.length == 4 && types[1] == BatchOperateListListener.class) {
+                    batchCalls.incrementAndGet();
+                    @SuppressWarnings("unchecked")
+                    List<BatchRecord> batch = (List<BatchRecord>) args[3];
+                    // completes on the calling thread instead of the event loop
+                    ((BatchOperateListListener) args[1]).onSuccess(batch, operate(batch));
+                    return null;
+                }
+                break;
+            case "truncate":
+                if (types.length == 4) {
+                    String namespace = (String) args[1];
+                    String setName = (String) args[2];
+                    records.keySet().removeIf(key -> key.namespace.equals(namespace)
+                            && Objects.equals(key.setName, setName));
+                    return null;
+                }
+                break;
+            case "queryPartitions":
+                if (types.length == 3 && types[1] == Statement.class) {
+                    queryCalls.incrementAndGet();
+                    return query((Statement) args[1], (PartitionFilter) args[2]);
+                }
+                break;
+            default:
+                break;
+        }
+        throw new UnsupportedOperationException(method.toString());
+    }
+
+    private boolean operate(List<BatchRecord> batch) {
+        boolean ok = true;
+        for (BatchRecord record : batch) {
+            record.inDoubt = false;
+            if (failing.test(record.key)) {
+                record.resultCode = failureResultCode;
+                record.record = null;
+                ok = false;
+                continue;
+            }
+            try {
+                if (record instanceof BatchWrite) {
+                    record.record = apply(record.key, ((BatchWrite) record).ops);
+                } else if (record instanceof BatchRead) {
+                    BatchRead read = (BatchRead) record;
+                    record.record = read.ops != null
+                            ? apply(record.key, read.ops)
+                            : get(record.key, read.readAllBins ? null : read.binNames);
+                } else if (record instanceof BatchDelete) {
+                    records.remove(record.key);
+                    record.record = null;
+                } else {
+                    throw new AerospikeException(ResultCode.PARAMETER_ERROR, "Unsupported batch record");
+                }
+                record.resultCode = record.record == null && !record.hasWrite
+                        ? ResultCode.KEY_NOT_FOUND_ERROR
+                        : ResultCode.OK;
+            } catch (AerospikeException e) {
+                record.resultCode = e.getResultCode();
+                record.record = null;
+            }
+            ok &= record.resultCode == ResultCode.OK;
+        }
+        return ok;
+    }
+
+    private RecordSet query(Statement statement, PartitionFilter partitions) {
+        int begin = partitions.getBegin();
+        int end = begin + partitions.getCount();
+        List<KeyRecord> results = new ArrayList<>();
+        records.forEach((key, stored) -> {
+            int partition = Partition.getPartitionId(key.digest);
+            if (key.namespace.equals(statement.getNamespace())
+                    && Objects.equals(key.setName, statement.getSetName())
+                    && partition >= begin && partition < end) {
+                synchronized (stored) {
+                    results.add(new KeyRecord(key, stored.toRecord(null)));
+                }
+            }
+        });
+        return recordSet(results);
+    }
+
+    /**
+     * Creates a record set holding the given records, the way the client fills it from the query threads.
+     */
+    private static RecordSet recordSet(List<KeyRecord> results) {
+        try {
+            Constructor<RecordSet> constructor = RecordSet.class.getDeclaredConstructor(IQueryExecutor.class, int.class);
+            constructor.setAccessible(true);
+            RecordSet recordSet = constructor.newInstance(new IQueryExecutor() {
+                @Override
+                public void stopThreads(Exception cause) {
+                }
+
+                @Override
+                public void checkForException() {
+                }
+            }, results.size() + 1);
+            Method put = RecordSet.class.getDeclaredMethod("put", KeyRecord.class);
+            put.setAccessible(true);
+            for (KeyRecord result : results) {
+                put.invoke(recordSet, result);
+            }
+            put.invoke(recordSet, RecordSet.END);
+            return recordSet;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Record get(Key key, String[] binNames) {
+        checkFailure(key);
+        Stored stored = records.get(key);
+        if (stored == null) {
+            return null;
+        }
+        synchronized (stored) {
+            return stored.toRecord(binNames);
+        }
+    }
+
+    private Record apply(Key key, Operation[] ops) {
+        boolean write = Arrays.stream(ops).anyMatch(op -> !isRead(op.type));
+        Stored stored = write ? records.computeIfAbsent(key, k -> new Stored()) : records.get(key);
+        if (stored == null) {
+            return null;
+        }
+        synchronized (stored) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            boolean readAll = false;
+            for (Operation op : ops) {
+                switch (op.type) {
+                    case READ:
+                        if (op.binName == null) {
+                            readAll = true;
+                        } else if (stored.bins.containsKey(op.binName)) {
+                            result.put(op.binName, stored.bins.get(op.binName));
+                        }
+                        break;
+                    case READ_HEADER:
+                        break;
+                    case WRITE:
+                        Object value = normalize(op.value);
+                        if (value == null) {
+                            stored.bins.remove(op.binName);
+                        } else {
+                            stored.bins.put(op.binName, value);
+                        }
+                        break;
+                    case ADD:
+                        stored.bins.put(op.binName, add(stored.bins.get(op.binName), normalize(op.value)));
+                        break;
+                    case APPEND:
+                        stored.bins.merge(op.binName, normalize(op.value), (a, b) -> a + String.valueOf(b));
+                        break;
+                    case PREPEND:
+                        stored.bins.merge(op.binName, normalize(op.value), (a, b) -> b + String.valueOf(a));
+                        break;
+                    case TOUCH:
+                        break;
+                    case DELETE:
+                        stored.bins.clear();
+                        break;
+                    case MAP_READ:
+                    case MAP_MODIFY:
+                        result.put(op.binName, map(stored, op));
+                        break;
+                    case CDT_READ:
+                    case CDT_MODIFY:
+                        result.put(op.binName, list(stored, op));
+                        break;
+                    default:
+                        throw new AerospikeException(ResultCode.PARAMETER_ERROR, "Unsupported operation " + op.type);
+                }
+            }
+            if (write) {
+                stored.generation++;
+                if (stored.bins.isEmpty()) {
+                    records.remove(key);
+                }
+            }
+            if (readAll) {
+                result.putAll(stored.bins);
+            }
+            return new Record(result, stored.generation, 0);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object map(Stored stored, Operation op) {
+        List<Object> args = cdtArgs(op);
+        int command = ((Number) args.get(0)).intValue();
+        Object current = stored.bins.get(op.binName);
+        if (current != null && !(current instanceof Map)) {
+            throw new AerospikeException(ResultCode.BIN_TYPE_ERROR);
+        }
+        Map<Object, Object> map = (Map<Object, Object>) current;
+        switch (command) {
+            case 67: // put
+                map = map == null ? newMap(stored, op.binName) : map;
+                map.put(args.get(1), args.get(2));
+                return (long) map.size();
+            case 68: // put items
+                map = map == null ? newMap(stored, op.binName) : map;
+                map.putAll((Map<Object, Object>) args.get(1));
+                return (long) map.size();
+            case 73: // increment
+                map = map == null ? newMap(stored, op.binName) : map;
+                Object incremented = add(map.get(args.get(1)), args.size() > 2 ? args.get(2) : 1L);
+                map.put(args.get(1), incremented);
+                return incremented;
+            case 96: // size
+                return map == null ? null : (long) map.size();
+            case 97: // get by key
+                int returnType = ((Number) args.get(1)).intValue();
+                if (returnType != 7 && returnType != 0) {
+                    throw new AerospikeException(ResultCode.PARAMETER_ERROR, "Unsupported map return type");
+                }
+                return map == null || returnType == 0 ? null : map.get(args.get(2));
+            default:
+                throw new AerospikeException(ResultCode.PARAMETER_ERROR, "Unsupported map operation " + command);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object list(Stored stored, Operation op) {
+        List<Object> args = cdtArgs(op);
+        int command = ((Number) args.get(0)).intValue();
+        Object current = stored.bins.get(op.binName);
+        if (current != null && !(current instanceof List)) {
+            throw new AerospikeException(ResultCode.BIN_TYPE_ERROR);
+        }
+        List<Object> list = (List<Object>) current;
+        switch (command) {
+            case 1: // append
+                list = list == null ? newList(stored, op.binName) : list;
+                list.add(args.get(1));
+                return (long) list.size();
+            case 2: // append items
+                list = list == null ? newList(stored, op.binName) : list;
+                list.addAll((List<Object>) args.get(1));
+                return (long) list.size();
+            case 16: // size
+                return list == null ? null : (long) list.size();
+            case 17: // get
+                if (list == null) {
+                    return null;
+                }
+                int index = ((Number) args.get(1)).intValue();
+                return list.get(index < 0 ? list.size() + index : index);
+            default:
+                throw new AerospikeException(ResultCode.PARAMETER_ERROR, "Unsupported list operation " + command);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> cdtArgs(Operation op) {
+        byte[] packed = (byte[]) op.value.getObject();
+        Object args = normalizeObject(Unpacker.unpackObjectList(packed, 0, packed.length));
+        if (!(args instanceof List) || ((List<Object>) args).isEmpty()
+                || !(((List<Object>) args).get(0) instanceof Number)) {
+            // nested contexts are not supported
+            throw new AerospikeException(ResultCode.PARAMETER_ERROR, "Unsupported CDT operation");
+        }
+        return (List<Object>) args;
+    }
+
+    private static Map<Object, Object> newMap(Stored stored, String binName) {
+        Map<Object, Object> map = new TreeMap<>(KEY_ORDER);
+        stored.bins.put(binName, map);
+        return map;
+    }
+
+    private static List<Object> newList(Stored stored, String binName) {
+        List<Object> list = new ArrayList<>();
+        stored.bins.put(binName, list);
+        return list;
+    }
+
+    private static Object add(Object current, Object delta) {
+        if (current == null) {
+            return delta;
+        }
+        if (!(current instanceof Number) || !(delta instanceof Number)) {
+            throw new AerospikeException(ResultCode.BIN_TYPE_ERROR);
+        }
+        if (current instanceof Long && delta instanceof Long) {
+            return (Long) current + (Long) delta;
+        }
+        if (current instanceof Double && delta instanceof Double) {
+            return (Double) current + (Double) delta;
+        }
+        throw new AerospikeException(ResultCode.BIN_TYPE_ERROR);
+    }
+
+    private static boolean isRead(Operation.Type type) {
+        switch (type) {
+            case READ:
+            case READ_HEADER:
+            case MAP_READ:
+            case CDT_READ:
+            case BIT_READ:
+            case HLL_READ:
+            case EXP_READ:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static Object normalize(Value value) {
+        return value == null ? null : normalizeObject(value.getObject());
+    }
+
+    /**
+     * Converts a value to the types returned by the server: integers are longs, floats are doubles.
+     */
+    private static Object normalizeObject(Object value) {
+        if (value instanceof Value) {
+            return normalize((Value) value);
+        }
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof Float) {
+            return ((Float) value).doubleValue();
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value ? 1L : 0L;
+        }
+        if (value instanceof Map) {
+            Map<Object, Object> map = new TreeMap<>(KEY_ORDER);
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                map.put(normalizeObject(entry.getKey()), normalizeObject(entry.getValue()));
+            }
+            return map;
+        }
+        if (value instanceof List) {
+            List<Object> list = new ArrayList<>();
+            for (Object item : (List<?>) value) {
+                list.add(normalizeObject(item));
+            }
+            return list;
+        }
+        return value;
+    }
+
+    private void checkFailure(Key key) {
+        if (failing.test(key)) {
+            throw new AerospikeException(failureResultCode);
+        }
+    }
+
+    private void delay() {
+        long millis = latency.toMillis();
+        if (millis > 0) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AerospikeException(ResultCode.TIMEOUT);
+            }
+        }
+    }
+
+    private static final class Stored {
+        private final Map<String, Object> bins = new LinkedHashMap<>();
+        private int generation;
+
+        Record toRecord(String[] binNames) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            if (binNames == null) {
+                result.putAll(bins);
+            } else {
+                for (String binName : binNames) {
+                    if (bins.containsKey(binName)) {
+                        result.put(binName, bins.get(binName));
+                    }
+                }
+            }
+            return new Record(result, generation, 0);
+        }
+    }
+}
@@ -0,0 +1,464 @@
+package io.github.reugn.micrometer.aerospike;
+
+import com.aerospike.client.BatchRecord;
+import com.aerospike.client.BatchWrite;
+import com.aerospike.client.Operation;
+import com.aerospike.client.Value;
+import io.github.reugn.micrometer.aerospike.SampleType.Field;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Statistic;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.config.NamingConvention;
+import io.micrometer.core.instrument.distribution.CountAtBucket;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MeterEncoderTest {
+
+    private final NamingConvention convention = new AerospikeNamingConvention();
+
+    private final MeterEncoder encoder = encoder(AerospikeConfig.DEFAULT);
+
+    private final Meter.Id id = new Meter.Id("request.time", Tags.of("uri", "/api"),
+            null, null, Meter.Type.TIMER);
+
+    @Test
+    void encodeTimer() {
+        BatchRecord record = encoder.encode(id, SampleType.TIMER, 1000L, 3, 5.5, 2.0, 6.0)
+                .orElseThrow(AssertionError::new);
+
+        Map<String, Object> bins = bins(record);
+        assertEquals("Timer", bins.get("type"));
+        assertEquals("request_time", bins.get("name"));
+        assertEquals("/api", bins.get("__uri"));
+        assertEquals(1000L, bins.get("ts"));
+        assertEquals(3L, bins.get("count"));
+        assertEquals(5.5, bins.get("max"));
+        assertEquals(2.0, bins.get("avg"));
+        assertEquals(6.0, bins.get("sum"));
+        assertEquals("request_time{uri=/api}_1000", record.key.userKey.getObject());
+    }
+
+    @Test
+    void cacheStaticPartUntilRemoved() {
+        encoder.encode(id, SampleType.TIMER, 1000L, 1, 1, 1, 1);
+        encoder.encode(id, SampleType.TIMER, 2000L, 1, 1, 1, 1);
+        assertEquals(1, encoder.size());
+
+        encoder.remove(id);
+        assertEquals(0, encoder.size());
+    }
+
+    @Test
+    void encodeSeriesKeys() {
+        AerospikeConfig config = new TestConfig() {
+            @Override
+            public boolean seriesKeys() {
+                return true;
+            }
+        };
+        MeterEncoder keyed = encoder(config);
+
+        BatchRecord record = keyed.encode(id, SampleType.TIMER, 120000L, 1, 1, 1, 1)
+                .orElseThrow(AssertionError::new);
+        assertEquals("request_time{uri=/api}_2", record.key.userKey.getObject());
+    }
+
+    @Test
+    void encodeInstance() {
+        AerospikeConfig config = new TestConfig() {
+            @Override
+            public String instanceId() {
+                return "pod-1";
+            }
+        };
+        MeterEncoder instance = encoder(config);
+
+        BatchRecord record = instance.encode(id, SampleType.TIMER, 1000L, 1, 1, 1, 1)
+                .orElseThrow(AssertionError::new);
+        assertEquals("request_time{uri=/api}@pod-1_1000", record.key.userKey.getObject());
+        assertEquals("pod-1", bins(record).get("instance"));
+    }
+
+    @Test
+    void encodeRotatedSet() {
+        AerospikeConfig config = new TestConfig() {
+            @Override
+            public SetRotation setRotation() {
+                return SetRotation.DAILY;
+            }
+
+            @Override
+            public Duration setRetention() {
+                return Duration.ofDays(1);
+            }
+        };
+        MeterEncoder rotating = encoder(config);
+        long timestamp = Instant.parse("2026-10-17T09:00:00Z").toEpochMilli();
+
+        BatchRecord record = rotating.encode(id, SampleType.TIMER, timestamp, 1, 2.0, 2.0, 2.0)
+                .orElseThrow(AssertionError::new);
+        BatchRecord nextDay = rotating.encode(id, SampleType.TIMER, timestamp + 86_400_000L, 1, 2.0, 2.0, 2.0)
+                .orElseThrow(AssertionError::new);
+        BatchRecord nextCycle = rotating.encode(id, SampleType.TIMER, timestamp + 3 * 86_400_000L, 1, 2.0, 2.0, 2.0)
+                .orElseThrow(AssertionError::new);
+
+        assertEquals("micrometer_1", record.key.setName);
+        assertEquals("request_time{uri=/api}_" + timestamp, record.key.userKey.getObject());
+        assertEquals("micrometer_2", nextDay.key.setName);
+        assertEquals("micrometer_1", nextCycle.key.setName);
+    }
+
+    @Test
+    void boundRotatedSets() {
+        AerospikeConfig config = new TestConfig() {
+            @Override
+            public SetRotation setRotation() {
+                return SetRotation.HOURLY;
+            }
+
+            @Override
+            public Duration setRetention() {
+                return Duration.ofDays(30);
+            }
+        };
+
+        assertThrows(IllegalArgumentException.class, () -> encoder(config));
+    }
+
+    @Test
+    void encodeBucketed() {
+        AerospikeConfig config = new TestConfig() {
+            @Override
+            public StorageMode storageMode() {
+                return StorageMode.BUCKETED;
+            }
+
+            @Override
+            public Duration bucketDuration() {
+                return Duration.ofSeconds(10);
+            }
+        };
+        MeterEncoder bucketed = encoder(config);
+
+        BatchWrite first = (BatchWrite) bucketed.encode(id, SampleType.TIMER, 12000L, 3, 5.5, 2.0, 6.0)
+                .orElseThrow(AssertionError::new);
+        BatchWrite second = (BatchWrite) bucketed.encode(id, SampleType.TIMER, 19000L, 1, 1, 1, 1)
+                .orElseThrow(AssertionError::new);
+
+        assertEquals("request_time{uri=/api}_10000", first.key.userKey.getObject());
+        assertEquals(first.key, second.key);
+        Operation count = Arrays.stream(first.ops).filter(op -> "count".equals(op.binName))
+                .findFirst().orElseThrow(AssertionError::new);
+        assertEquals(Operation.Type.MAP_MODIFY, count.type);
+        assertEquals(10000L, bins(first).get("ts"));
+    }
+
+    @Test
+    void skipUnchangedUntilHeartbeat() {
+        AerospikeConfig config = new TestConfig() {
+            @Override
+            public boolean deltaPublishing() {
+                return true;
+            }
+
+            @Override
+            public Duration heartbeatInterval() {
+                return Duration.ofSeconds(10);
+            }
+        };
+        MeterEncoder delta = encoder(config);
+        Meter.Id gauge = new Meter.Id("queue.size", Tags.empty(), null, null, Meter.Type.GAUGE);
+
+        assertTrue(delta.encode(gauge, SampleType.GAUGE, 1000L, 5).isPresent());
+        assertFalse(delta.encode(gauge, SampleType.GAUGE, 2000L, 5).isPresent());
+        assertTrue(delta.encode(gauge, SampleType.GAUGE, 3000L, 6).isPresent());
+        assertTrue(delta.encode(gauge, SampleType.GAUGE, 13000L, 6).isPresent());
+
+        assertTrue(delta.encode(id, SampleType.TIMER, 1000L, 0, 0, 0, 0).isPresent());
+        assertFalse(delta.encode(id, SampleType.TIMER, 2000L, 0, 0, 0, 0).isPresent());
+        assertTrue(delta.encode(id, SampleType.TIMER, 3000L, 1, 2, 2, 2).isPresent());
+    }
+
+    @Test
+    void encodePacked() {
+        AerospikeConfig config = new TestConfig() {
+            @Override
+            public boolean packedEncoding() {
+                return true;
+            }
+        };
+        MeterEncoder packed = encoder(config);
+
+        BatchRecord record = packed.encode(id, SampleType.TIMER, 1000L, 3, 5.5, 2.0, 6.0)
+                .orElseThrow(AssertionError::new);
+        Map<String, Object> bins = bins(record);
+        assertEquals(3, bins.size());
+        assertEquals("request_time", bins.get("name"));
+
+        PackedSample sample = PackedSample.decode((byte[]) bins.get("data"), (Long) bins.get("ts"));
+        assertEquals("Timer", sample.getType());
+        assertEquals(1000L, sample.getTimestamp());
+        assertEquals(Collections.singletonMap("uri", "/api"), sample.getTags());
+        assertEquals(3.0, sample.getValues().get("count"));
+        assertEquals(5.5, sample.getValues().get("max"));
+        assertEquals(2.0, sample.getValues().get("avg"));
+        assertEquals(6.0, sample.getValues().get("sum"));
+
+        Meter.Id custom = new Meter.Id("custom", Tags.empty(), null, null, Meter.Type.OTHER);
+        BatchRecord customRecord = packed.encode(custom, SampleType.CUSTOM, 1000L,
+                new Field[]{Field.of(Statistic.TOTAL), Field.of(Statistic.ACTIVE_TASKS)},
+                new double[]{-1.25, 7}).orElseThrow(AssertionError::new);
+        PackedSample customSample = PackedSample.decode((byte[]) bins(customRecord).get("data"), 1000L);
+        assertEquals(-1.25, customSample.getValues().get("total"));
+        assertEquals(7.0, customSample.getValues().get("active"));
+    }
+
+    @Test
+    void packedCodesAreStable() {
+        assertArrayEquals(new byte[]{PackedSample.VERSION, 2, 0},
+                PackedSample.header(SampleType.TIMER, Collections.emptyList()));
+        assertEquals(8, PackedSample.typeCode(SampleType.CUSTOM));
+        assertEquals(0, PackedSample.statisticCode(Statistic.TOTAL));
+        assertEquals(6, PackedSample.statisticCode(Statistic.ACTIVE_TASKS));
+        assertEquals(7, PackedSample.statisticCode(Statistic.DURATION));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> PackedSample.decode(new byte[]{PackedSample.VERSION, 99, 0, 0, 0}, 1000L));
+    }
+
+    @Test
+    void encodeHistogram() {
+        AerospikeConfig config = new TestConfig() {
+            @Override
+            public boolean histogramMerge() {
+                return true;
+            }
+        };
+        MeterEncoder merging = encoder(config);
+        HistogramSnapshot snapshot = new HistogramSnapshot(4, 40, 20,
+                new ValueAtPercentile[]{new ValueAtPercentile(0.99, 19)},
+                new CountAtBucket[]{new CountAtBucket(10.0, 2), new CountAtBucket(20.0, 4)},
+                null);
+
+        BatchRecord record = merging.encode(id, SampleType.DISTRIBUTION_SUMMARY, 61000L, snapshot, null,
+                4, 20, 10, 40).orElseThrow(AssertionError::new);
+        Map<String, Object> bins = bins(record);
+        assertEquals(Value.get(19.0), ((Map<?, ?>) bins.get("pct")).get(Value.get(0.99)));
+        assertEquals(Value.get(2L), ((Map<?, ?>) bins.get("hist")).get(Value.get(10.0)));
+
+        List<BatchRecord> merge = new ArrayList<>();
+        merging.drainSharedRecords(merge);
+        assertEquals(1, merge.size());
+        assertEquals("micrometer_merge", merge.get(0).key.setName);
+        assertEquals("request_time{uri=/api}_60000", merge.get(0).key.userKey.getObject());
+        long increments = Arrays.stream(((BatchWrite) merge.get(0)).ops)
+                .filter(op -> "hist".equals(op.binName)).count();
+        assertEquals(2, increments);
+
+        merging.drainSharedRecords(merge);
+        assertEquals(1, merge.size());
+
+        merge.clear();
+        merging.encode(id, SampleType.DISTRIBUTION_SUMMARY, 61000L, snapshot, null, 4, 20, 10, 40);
+        merging.drainSharedRecords(merge);
+        assertTrue(merge.isEmpty());
+    }
+
+    @Test
+    void mergeTimerInBaseUnit() {
+        AerospikeConfig config = new TestConfig() {
+            @Override
+            public boolean histogramMerge() {
+                return true;
+            }
+        };
+        MeterEncoder merging = encoder(config);
+        // a 5ms sample in the step, while the histogram window holds two samples
+        HistogramSnapshot snapshot = new HistogramSnapshot(1, 5.0e6, 5.0e6, null,
+                new CountAtBucket[]{new CountAtBucket(1.0e7, 2), new CountAtBucket(1.0e8, 2)},
+                null);
+
+        BatchRecord record = merging.encode(id, SampleType.TIMER, 61000L, snapshot, TimeUnit.MILLISECONDS,
+                1, 5.0, 5.0, 5.0).orElseThrow(AssertionError::new);
+        List<BatchRecord> merge = new ArrayList<>();
+        merging.drainSharedRecords(merge);
+
+        Map<String, Object> sample = bins(record);
+        Map<String, Object> merged = Arrays.stream(((BatchWrite) merge.get(0)).ops)
+                .filter(op -> op.type == Operation.Type.ADD)
+                .collect(Collectors.toMap(op -> op.binName, op -> op.value.getObject()));
+        assertEquals(sample.get("sum"), merged.get("sum"));
+        assertEquals(2L, merged.get("count"));
+        assertEquals(Value.get(2L), ((Map<?, ?>) sample.get("hist")).get(Value.get(10.0)));
+    }
+
+    @Test
+    void encodeAggregate() {
+        AerospikeConfig config = new TestConfig() {
+            @Override
+            public boolean aggregateWrites() {
+                return true;
+            }
+        };
+        MeterEncoder aggregating = encoder(config);
+
+        aggregating.encode(id, SampleType.TIMER, 61000L, 0, 0, 0, 0);
+        aggregating.encode(id, SampleType.TIMER, 121000L, 3, 5.5, 2.0, 6.0);
+        List<BatchRecord> aggregates = new ArrayList<>();
+        aggregating.drainSharedRecords(aggregates);
+
+        assertEquals(1, aggregates.size());
+        BatchWrite aggregate = (BatchWrite) aggregates.get(0);
+        assertEquals("micrometer_agg", aggregate.key.setName);
+        assertEquals("request_time{uri=/api}_120000", aggregate.key.userKey.getObject());
+        Map<String, Operation.Type> types = Arrays.stream(aggregate.ops)
+                .collect(Collectors.toMap(op -> op.binName, op -> op.type));
+        assertEquals(Operation.Type.ADD, types.get("count"));
+        assertEquals(Operation.Type.ADD, types.get("sum"));
+        assertEquals(Operation.Type.EXP_MODIFY, types.get("max"));
+        assertFalse(types.containsKey("avg"));
+    }
+
+    @Test
+    void aggregateStepOnce() {
+        MeterEncoder aggregating = encoder(new TestConfig() {
+            @Override
+            public boolean aggregateWrites() {
+                return true;
+            }
+        });
+
+        assertTrue(aggregating.encode(id, SampleType.TIMER, 120000L, 3, 5.5, 2.0, 6.0).isPresent());
+        assertTrue(aggregating.encode(id, SampleType.TIMER, 120000L, 3, 5.5, 2.0, 6.0).isPresent());
+        List<BatchRecord> aggregates = new ArrayList<>();
+        aggregating.drainSharedRecords(aggregates);
+
+        assertEquals(1, aggregates.size());
+    }
+
+    @Test
+    void encodeRollups() {
+        AerospikeConfig config = new TestConfig() {
+            @Override
+            public List<RollupTier> rollupTiers() {
+                return RollupTier.defaults();
+            }
+        };
+        MeterEncoder rollingUp = encoder(config);
+        Meter.Id gauge = new Meter.Id("queue.size", Tags.empty(), null, null, Meter.Type.GAUGE);
+
+        rollingUp.encode(id, SampleType.TIMER, 61000L, 0, 0, 0, 0);
+        rollingUp.encode(id, SampleType.TIMER, 3_720_000L, 3, 5.5, 2.0, 6.0);
+        rollingUp.encode(gauge, SampleType.GAUGE, 3_720_000L, 7);
+        List<BatchRecord> rollups = new ArrayList<>();
+        rollingUp.drainSharedRecords(rollups);
+
+        assertEquals(6, rollups.size());
+        assertEquals(Arrays.asList("micrometer_1m", "micrometer_1h", "micrometer_1d"), rollups.subList(0, 3).stream()
+                .map(record -> record.key.setName).collect(Collectors.toList()));
+        BatchWrite hour = (BatchWrite) rollups.get(1);
+        assertEquals("request_time{uri=/api}_3600000", hour.key.userKey.getObject());
+        assertEquals(90 * 86400, hour.policy.expiration);
+        Map<String, Operation.Type> types = Arrays.stream(hour.ops)
+                .collect(Collectors.toMap(op -> op.binName, op -> op.type));
+        assertEquals(Operation.Type.ADD, types.get("samples"));
+        assertEquals(Operation.Type.ADD, types.get("count"));
+        assertEquals(Operation.Type.ADD, types.get("sum"));
+        assertEquals(Operation.Type.EXP_MODIFY, types.get("max"));
+        assertFalse(types.containsKey("avg"));
+
+        BatchWrite day = (BatchWrite) rollups.get(5);
+        assertEquals("queue_size_0", day.key.userKey.getObject());
+        types = Arrays.stream(day.ops).collect(Collectors.toMap(op -> op.binName, op -> op.type));
+        assertEquals(Operation.Type.ADD, types.get("value"));
+        assertEquals(Operation.Type.EXP_MODIFY, types.get("value_max"));
+    }
+
+    @Test
+    void rollupStepHistograms() {
+        MeterEncoder rollingUp = encoder(new TestConfig() {
+            @Override
+            public List<RollupTier> rollupTiers() {
+                return Collections.singletonList(new RollupTier(Duration.ofHours(1), Duration.ofDays(1)));
+            }
+        });
+        // two recordings in the first step and one in the second, while the histogram window holds all three
+        HistogramSnapshot first = new HistogramSnapshot(2, 55, 50, null,
+                new CountAtBucket[]{new CountAtBucket(10.0, 1), new CountAtBucket(100.0, 2)}, null);
+        HistogramSnapshot second = new HistogramSnapshot(3, 60, 50, null,
+                new CountAtBucket[]{new CountAtBucket(10.0, 2), new CountAtBucket(100.0, 3)}, null);
+
+        rollingUp.encode(id, SampleType.DISTRIBUTION_SUMMARY, 3_660_000L, first, null, 2, 50, 27.5, 55);
+        rollingUp.encode(id, SampleType.DISTRIBUTION_SUMMARY, 3_720_000L, second, null, 1, 5, 5, 5);
+        List<BatchRecord> rollups = new ArrayList<>();
+        rollingUp.drainSharedRecords(rollups);
+
+        InMemoryAerospikeClient client = new InMemoryAerospikeClient();
+        for (BatchRecord rollup : rollups) {
+            client.client().operate(null, rollup.key, Arrays.stream(((BatchWrite) rollup).ops)
+                    .filter(op -> "hist".equals(op.binName)).toArray(Operation[]::new));
+        }
+        Map<?, ?> hist = (Map<?, ?>) client.record(rollups.get(0).key).getValue("hist");
+        assertEquals(3L, hist.get(100.0));
+        assertEquals(2L, hist.get(10.0));
+    }
+
+    @Test
+    void shareRollupsAcrossInstances() {
+        AerospikeConfig config = new TestConfig() {
+            @Override
+            public String instanceId() {
+                return "pod-1";
+            }
+
+            @Override
+            public List<RollupTier> rollupTiers() {
+                return Collections.singletonList(new RollupTier(Duration.ofHours(1), Duration.ofDays(1)));
+            }
+        };
+        MeterEncoder rollingUp = encoder(config);
+
+        rollingUp.encode(id, SampleType.TIMER, 3_720_000L, 3, 5.5, 2.0, 6.0);
+        List<BatchRecord> rollups = new ArrayList<>();
+        rollingUp.drainSharedRecords(rollups);
+
+        assertEquals(1, rollups.size());
+        assertEquals("request_time{uri=/api}_3600000", rollups.get(0).key.userKey.getObject());
+        assertFalse(Arrays.stream(((BatchWrite) rollups.get(0)).ops).anyMatch(op -> "instance".equals(op.binName)));
+    }
+
+    private MeterEncoder encoder(AerospikeConfig config) {
+        return new MeterEncoder(config,
+                id -> id.getConventionName(convention),
+                id -> id.getConventionTags(convention));
+    }
+
+    private static Map<String, Object> bins(BatchRecord record) {
+        return Arrays.stream(((BatchWrite) record).ops)
+                .collect(Collectors.toMap(op -> op.binName, op -> op.value.getObject()));
+    }
+
+    /**
+     * The defaults, overridden by each test with the options it is about.
+     */
+    private abstract static class TestConfig implements AerospikeConfig {
+        @Override
+        public String get(String key) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package io.github.reugn.micrometer.aerospike.client;
+
+import com.aerospike.client.AerospikeException;
+import com.aerospike.client.BatchRecord;
+import com.aerospike.client.BatchResults;
+import com.aerospike.client.Bin;
+import com.aerospike.client.IAerospikeClient;
+import com.aerospike.client.Key;
+import com.aerospike.client.Record;
+import com.aerospike.client.ResultCode;
+import com.aerospike.client.ScanCallback;
+import com.aerospike.client.listener.RecordListener;
+import com.aerospike.client.listener.WriteListener;
+import com.aerospike.client.query.PartitionFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AerospikeClientMicrometerTest {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    private final Key key = new Key("test", "test", "key");
+
+    private final Record record = new Record(Collections.singletonMap("bin", 1L), 1, 0);
+
+    /**
+     * Completes every asynchronous command immediately, failing reads and acknowledging writes.
+     * Scans deliver three records, batches return two successful records and a missing one,
+     * and touch times out in doubt.
+     */
+    private final IAerospikeClient delegate = (IAerospikeClient) Proxy.newProxyInstance(
+            IAerospikeClient.class.getClassLoader(),
+            new Class<?>[]{IAerospikeClient.class},
+            (proxy, method, args) -> {
+                if (args != null && method.getName().startsWith("scan")) {
+                    for (Object arg : args) {
+                        if (arg instanceof ScanCallback) {
+                            for (int i = 0; i < 3; i++) {
+                                ((ScanCallback) arg).scanCallback(key, record);
+                            }
+                        }
+                    }
+                } else if (args != null && args.length > 1) {
+                    if (args[1] instanceof WriteListener) {
+                        ((WriteListener) args[1]).onSuccess((Key) args[3]);
+                    } else if (args[1] instanceof RecordListener) {
+                        ((RecordListener) args[1]).onFailure(new AerospikeException(ResultCode.TIMEOUT));
+                    }
+                }
+                if (method.getReturnType() == BatchResults.class) {
+                    BatchRecord[] records = new BatchRecord[]{
+                            new BatchRecord(key, null, ResultCode.OK, false, true),
+                            new BatchRecord(key, null, ResultCode.OK, false, true),
+                            new BatchRecord(key, null, ResultCode.KEY_NOT_FOUND_ERROR, false, true)
+                    };
+                    return new BatchResults(records, false);
+                }
+                if (method.getName().equals("touch")) {
+                    AerospikeException e = new AerospikeException(ResultCode.TIMEOUT);
+                    e.setInDoubt(true, 1);
+                    throw e;
+                }
+                return method.getReturnType() == boolean.class ? true : null;
+            });
+
+    private final IAerospikeClient client = new AerospikeClientMicrometer(delegate, registry);
+
+    @Test
+    void asyncSuccessIsTimed() {
+        client.put(null, new WriteListener() {
+            @Override
+            public void onSuccess(Key key) {
+            }
+
+            @Override
+            public void onFailure(AerospikeException exception) {
+                fail(exception);
+            }
+        }, null, key, new Bin("bin", 1));
+
+        Timer timer = registry.find("client.put.time").timer();
+        assertNotNull(timer);
+        assertEquals(1, timer.count());
+        assertEquals(1, registry.get("client.put.count").counter().count());
+    }
+
+    @Test
+    void asyncFailureIsTimedAndCounted() {
+        client.get(null, new RecordListener() {
+            @Override
+            public void onSuccess(Key key, Record record) {
+                fail("unexpected success");
+            }
+
+            @Override
+            public void onFailure(AerospikeException exception) {
+            }
+        }, null, key);
+
+        assertEquals(1, registry.get("client.get.time").timer().count());
+        assertEquals(1, registry.get("client.error.count")
+                .tags("method", "get", "result_code", "timeout", "in_doubt", "false").counter().count());
+    }
+
+    @Test
+    void syncCallsReuseMeters() {
+        client.put(null, key, new Bin("bin", 1));
+        client.put(null, key, new Bin("bin", 2));
+
+        assertEquals(2, registry.get("client.put.count").counter().count());
+        assertEquals(2, registry.get("client.put.time").timer().count());
+    }
+
+    @Test
+    void scanStreamIsMetered() {
+        final int[] delivered = {0};
+        client.scanAll(null, "test", "test", (key, record) -> delivered[0]++);
+
+        assertEquals(3, delivered[0]);
+        assertEquals(3, registry.get("client.scanAll.stream.records").summary().totalAmount());
+        assertEquals(1, registry.get("client.scanAll.stream.first").timer().count());
+        assertEquals(1, registry.get("client.scanAll.stream.time").timer().count());
+    }
+
+    @Test
+    void nodeScanIsMeteredPerNode() {
+        client.scanNode(null, "node1", "test", "test", (key, record) -> {
+        });
+
+        assertEquals(1, registry.get("client.scanNode.count").counter().count());
+        assertEquals(3, registry.get("client.scan.node.records").tag("node", "node1").counter().count());
+        assertEquals(33, registry.get("client.scan.node.bytes").tag("node", "node1").counter().count());
+        assertEquals(1, registry.get("client.scan.node.time").tag("node", "node1").timer().count());
+    }
+
+    @Test
+    void nodeScanTagsAreBounded() {
+        for (int i = 0; i <= ScanScopes.MAX_NODES; i++) {
+            client.scanNode(null, "node" + i, "test", "test", (key, record) -> {
+            });
+        }
+
+        assertEquals(ScanScopes.MAX_NODES + 1, registry.find("client.scan.node.records").counters().size());
+        assertEquals(3, registry.get("client.scan.node.records").tag("node", ScanScopes.OTHER).counter().count());
+    }
+
+    @Test
+    void partitionScanIsTaggedBySizeClass() {
+        for (int begin = 0; begin < 64; begin += 16) {
+            client.scanPartitions(null, PartitionFilter.range(begin, 16), "test", "test", (key, record) -> {
+            });
+        }
+        client.scanPartitions(null, PartitionFilter.all(), "test", "test", (key, record) -> {
+        });
+
+        assertEquals(2, registry.find("client.scan.partitions.records").counters().size());
+        assertEquals(12, registry.get("client.scan.partitions.records").tag("partitions", "2-16").counter().count());
+        assertEquals(3, registry.get("client.scan.partitions.records").tag("partitions", "all").counter().count());
+    }
+
+    @Test
+    void keyTagsAreBounded() {
+        MicrometerPolicy policy = new MicrometerPolicy.Builder()
+                .meterMethodCalls(true)
+                .tagKeys(true)
+                .maxKeyTags(1)
+                .build();
+        IAerospikeClient tagged = new AerospikeClientMicrometer(delegate, registry, policy);
+
+        tagged.put(null, new Key("test", "hot", 1), new Bin("bin", 1));
+        tagged.put(null, new Key("test", "hot", 2), new Bin("bin", 1));
+        tagged.put(null, new Key("test", "cold", 1), new Bin("bin", 1));
+        tagged.put(null, new Key("test", "another", 1), new Bin("bin", 1));
+
+        assertEquals(2, registry.get("client.put.count")
+                .tags("namespace", "test", "set", "hot").counter().count());
+        assertEquals(2, registry.get("client.put.count")
+                .tags("namespace", "other", "set", "other").counter().count());
+    }
+
+    @Test
+    void keyTagsAreBoundedUnderContention() throws Exception {
+        MicrometerPolicy policy = new MicrometerPolicy.Builder()
+                .meterMethodCalls(true)
+                .tagKeys(true)
+                .maxKeyTags(4)
+                .build();
+        IAerospikeClient tagged = new AerospikeClientMicrometer(delegate, registry, policy);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 64; i++) {
+                    tagged.put(null, new Key("test", "set" + (thread * 64 + i), 1), new Bin("bin", 1));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        long sets = registry.find("client.put.count").counters().stream()
+                .map(counter -> counter.getId().getTag("set"))
+                .filter(set -> !"other".equals(set))
+                .count();
+        assertEquals(4, sets);
+    }
+
+    @Test
+    void batchOutcomesAreMetered() {
+        client.delete(null, null, new Key[]{key, key, key});
+
+        assertEquals(3, registry.get("client.delete.batch.size").summary().totalAmount());
+        assertEquals(1, registry.get("client.delete.batch.key.time").timer().count());
+        assertEquals(2, registry.get("client.delete.batch.results")
+                .tag("result_code", "ok").counter().count());
+        assertEquals(1, registry.get("client.delete.batch.results")
+                .tag("result_code", "key_not_found_error").counter().count());
+    }
+
+    @Test
+    void errorsAreClassified() {
+        assertThrows(AerospikeException.class, () -> client.touch(null, key));
+        assertThrows(AerospikeException.class, () -> client.touch(null, key));
+
+        assertEquals(2, registry.get("client.error.count")
+                .tags("method", "touch", "result_code", "timeout", "in_doubt", "true").counter().count());
+    }
+}